@@ -0,0 +1,114 @@
+import java.util.Set;
+
+/**
+ * A HangmanDictionary kept on the heap: one array of Strings per length,
+ * plus the letter position table for every length up to 64.
+ */
+class ArrayDictionary extends HangmanDictionary {
+  private final String[][] byLength;
+  // By length, then letter * numWords(length) + id. Storing each letter
+  // together keeps the masks read for one guess next to each other.
+  private final long[][] positions;
+  private final int size;
+  private volatile long fingerprint; // 0 until asked for
+
+  /*
+   * Build the index from words already bucketed by length, byLength[len]
+   * holds the words of length len. The arrays are kept, not copied.
+   * pre: byLength.length > 0
+   */
+  ArrayDictionary(String[][] byLength) {
+    this.byLength = byLength;
+    int maxLength = byLength.length - 1;
+    positions = new long[maxLength + 1][];
+    int total = 0;
+    for (int len = 0; len <= maxLength; len++) {
+      if (len <= Long.SIZE) {
+        positions[len] = positionTable(byLength[len]);
+      }
+      total += byLength[len].length;
+    }
+    size = total;
+  }
+
+  // Split the words into one array per length.
+  static String[][] bucket(Set<String> words) {
+    if (words == null) {
+      throw new IllegalArgumentException("The set of words may not be null.");
+    }
+    int maxLength = 0;
+    for (String word : words) {
+      maxLength = Math.max(maxLength, word.length());
+    }
+    int[] counts = new int[maxLength + 1];
+    for (String word : words) {
+      counts[word.length()]++;
+    }
+    String[][] byLength = new String[maxLength + 1][];
+    for (int len = 0; len <= maxLength; len++) {
+      byLength[len] = new String[counts[len]];
+      counts[len] = 0;
+    }
+    for (String word : words) {
+      int len = word.length();
+      byLength[len][counts[len]++] = word;
+    }
+    return byLength;
+  }
+
+  // Precompute the positions of each letter a - z in each word.
+  private static long[] positionTable(String[] words) {
+    long[] table = new long[LETTERS * words.length];
+    for (int id = 0; id < words.length; id++) {
+      String word = words[id];
+      for (int i = 0; i < word.length(); i++) {
+        int letter = letterIndex(word.charAt(i));
+        if (letter >= 0) {
+          table[letter * words.length + id] |= 1L << i;
+        }
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public long fingerprint() {
+    if (fingerprint == 0) {
+      fingerprint = super.fingerprint();
+    }
+    return fingerprint;
+  }
+
+  @Override
+  public boolean hasPositions(int length) {
+    return 0 <= length && length < positions.length && positions[length] != null;
+  }
+
+  @Override
+  public long positions(int length, int letter, int id) {
+    return positions[length][letter * byLength[length].length + id];
+  }
+
+  @Override
+  public String word(int length, int id) {
+    return byLength[length][id];
+  }
+
+  @Override
+  public int numWords(int length) {
+    if (length < 0 || length >= byLength.length) {
+      return 0;
+    }
+    return byLength[length].length;
+  }
+
+  @Override
+  public int maxLength() {
+    return byLength.length - 1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
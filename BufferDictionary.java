@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A HangmanDictionary read straight out of a ByteBuffer in the compiled
+ * dictionary format: a file mapped into memory, or a direct buffer an index
+ * was copied into to keep it off the heap.
+ * <br>
+ * The format is little endian. A header of four ints, MAGIC, VERSION, the
+ * longest word length and the number of words, and a long, the fingerprint
+ * of the words, is followed by one entry of
+ * three ints per length from 0 to the longest: the number of words of that
+ * length, the offset of their words and the offset of their positions
+ * (-1 for lengths over 64). The words of a length are fixed width records,
+ * one byte per character (ISO-8859-1). The positions of a length are longs
+ * laid out like ArrayDictionary's, letter * numWords(length) + id. Every
+ * section starts on a multiple of 8. Version 1 files, which have no
+ * fingerprint in the header, can still be read.
+ * <br>
+ * Since the words of a length are fixed width byte records, the positions
+ * of a character in words too long for the position tables are found by
+ * comparing a long, eight characters, at a time.
+ * <br>
+ * The buffer is only read with absolute gets, which never change its
+ * position, so any number of threads can read one dictionary at once.
+ */
+class BufferDictionary extends HangmanDictionary {
+  static final int MAGIC = 0x48414E47; // "HANG"
+  static final int VERSION = 2;
+  private static final int HEADER_INTS = 6;
+  private static final int V1_HEADER_INTS = 4;
+  private static final int ENTRY_INTS = 3;
+  // For comparing the bytes of a long at once in positions.
+  private static final long BYTES_ONE = 0x0101010101010101L;
+  private static final long BYTES_LOW7 = 0x7F7F7F7F7F7F7F7FL;
+  private static final long BYTE_GATHER = 0x0102040810204080L; // bit 8i to bit 56 + i
+
+  private final ByteBuffer buffer;
+  private final int[] counts;
+  private final int[] wordOffsets;
+  private final int[] positionOffsets;
+  private final int size;
+  private final long fingerprint; // 0 if the file has none
+
+  /*
+   * Read the index held in buffer, starting at index 0.
+   * The buffer is kept, not copied, and must not be changed afterwards.
+   */
+  BufferDictionary(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      int version = this.buffer.getInt(4);
+      if (this.buffer.getInt(0) != MAGIC || (version != VERSION && version != 1)) {
+        throw new IOException("Not a compiled dictionary, or an unsupported version.");
+      }
+      int maxLength = this.buffer.getInt(8);
+      size = this.buffer.getInt(12);
+      int headerInts = version == 1 ? V1_HEADER_INTS : HEADER_INTS;
+      fingerprint = version == 1 ? 0 : this.buffer.getLong(16);
+      counts = new int[maxLength + 1];
+      wordOffsets = new int[maxLength + 1];
+      positionOffsets = new int[maxLength + 1];
+      for (int len = 0; len <= maxLength; len++) {
+        int entry = (headerInts + len * ENTRY_INTS) * Integer.BYTES;
+        counts[len] = this.buffer.getInt(entry);
+        wordOffsets[len] = this.buffer.getInt(entry + 4);
+        positionOffsets[len] = this.buffer.getInt(entry + 8);
+      }
+    } catch (IndexOutOfBoundsException | BufferUnderflowException | NegativeArraySizeException e) {
+      throw new IOException("The compiled dictionary is truncated.", e);
+    }
+  }
+
+  /*
+   * Map a compiled dictionary file read only. The mapping stays valid
+   * after the channel is closed.
+   */
+  static BufferDictionary open(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("The file may not be null.");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new BufferDictionary(mapped);
+    }
+  }
+
+  /*
+   * Copy dictionary into a direct buffer, outside the Java heap, in the
+   * compiled format. Throws IllegalArgumentException if a word has a
+   * character over 0xFF or the dictionary does not fit in a ByteBuffer.
+   */
+  static BufferDictionary copyOf(HangmanDictionary dictionary) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(encodedSize(dictionary));
+    write(dictionary, buffer);
+    try {
+      return new BufferDictionary(buffer);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not read back a dictionary just written.", e);
+    }
+  }
+
+  /*
+   * The number of bytes dictionary takes in the compiled format.
+   * Throws IllegalArgumentException if it does not fit in a ByteBuffer.
+   */
+  static int encodedSize(HangmanDictionary dictionary) {
+    long end = align(((long) HEADER_INTS + (dictionary.maxLength() + 1L) * ENTRY_INTS)
+        * Integer.BYTES);
+    for (int len = 0; len <= dictionary.maxLength(); len++) {
+      long numWords = dictionary.numWords(len);
+      end += align(numWords * len);
+      if (dictionary.hasPositions(len)) {
+        end += numWords * LETTERS * Long.BYTES;
+      }
+    }
+    if (end > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The dictionary is too large to compile: "
+          + end + " bytes.");
+    }
+    return (int) end;
+  }
+
+  /*
+   * Write dictionary in the compiled format to target, starting at index 0.
+   * pre: target.capacity() >= encodedSize(dictionary), every character of
+   * every word is at most 0xFF
+   */
+  static void write(HangmanDictionary dictionary, ByteBuffer target) {
+    ByteBuffer out = target.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int maxLength = dictionary.maxLength();
+    out.putInt(0, MAGIC);
+    out.putInt(4, VERSION);
+    out.putInt(8, maxLength);
+    out.putInt(12, dictionary.size());
+    out.putLong(16, dictionary.fingerprint());
+    int end = (int) align((HEADER_INTS + (maxLength + 1L) * ENTRY_INTS) * Integer.BYTES);
+    for (int len = 0; len <= maxLength; len++) {
+      int numWords = dictionary.numWords(len);
+      int entry = (HEADER_INTS + len * ENTRY_INTS) * Integer.BYTES;
+      out.putInt(entry, numWords);
+      out.putInt(entry + 4, end);
+      for (int id = 0; id < numWords; id++) {
+        String word = dictionary.word(len, id);
+        for (int i = 0; i < len; i++) {
+          char ch = word.charAt(i);
+          if (ch > 0xFF) {
+            throw new IllegalArgumentException("Only ISO-8859-1 words can be compiled: "
+                + word);
+          }
+          out.put(end + id * len + i, (byte) ch);
+        }
+      }
+      end += (int) align((long) numWords * len);
+      if (dictionary.hasPositions(len)) {
+        out.putInt(entry + 8, end);
+        for (int letter = 0; letter < LETTERS; letter++) {
+          for (int id = 0; id < numWords; id++) {
+            out.putLong(end, dictionary.positions(len, letter, id));
+            end += Long.BYTES;
+          }
+        }
+      } else {
+        out.putInt(entry + 8, -1);
+      }
+    }
+  }
+
+  // Round up to a multiple of 8 so the longs that follow are aligned.
+  private static long align(long offset) {
+    return (offset + 7) & ~7L;
+  }
+
+  @Override
+  public long fingerprint() {
+    return fingerprint != 0 ? fingerprint : super.fingerprint();
+  }
+
+  @Override
+  public boolean hasPositions(int length) {
+    return 0 <= length && length < positionOffsets.length && positionOffsets[length] >= 0;
+  }
+
+  @Override
+  public long positions(int length, int letter, int id) {
+    return buffer.getLong(positionOffsets[length] + (letter * counts[length] + id) * Long.BYTES);
+  }
+
+  /*
+   * Compares eight characters of the word at a time: each long read from
+   * the record is xored with ch in every byte, so the bytes that held ch
+   * become zero, and the zero bytes are found and packed into eight bits
+   * of the mask with a few arithmetic steps and no branches. Only the last
+   * few characters of a record, if any, are compared one at a time.
+   */
+  @Override
+  public void positions(int length, char ch, int id, long[] mask) {
+    Arrays.fill(mask, 0, (length + 63) / 64, 0L);
+    if (ch > 0xFF) {
+      return; // every character of a compiled word is at most 0xFF
+    }
+    long broadcast = ch * BYTES_ONE;
+    int record = wordOffsets[length] + id * length;
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      long x = buffer.getLong(record + i) ^ broadcast;
+      long zeros = ~(((x & BYTES_LOW7) + BYTES_LOW7) | x | BYTES_LOW7); // 0x80 per zero byte
+      mask[i >>> 6] |= ((zeros >>> 7) * BYTE_GATHER >>> 56) << i;
+    }
+    for (; i < length; i++) {
+      if ((buffer.get(record + i) & 0xFF) == ch) {
+        mask[i >>> 6] |= 1L << i;
+      }
+    }
+  }
+
+  @Override
+  public String word(int length, int id) {
+    byte[] word = new byte[length];
+    buffer.get(wordOffsets[length] + id * length, word);
+    return new String(word, StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public int numWords(int length) {
+    if (length < 0 || length >= counts.length) {
+      return 0;
+    }
+    return counts[length];
+  }
+
+  @Override
+  public int maxLength() {
+    return counts.length - 1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  Compiles a text dictionary into the binary format HangmanDictionary.map
+ *  reads, so a game can start without parsing the text file. Also writes
+ *  the OpeningBook for the dictionary next to it, ending in .book.
+ *  
+ *  <br><br>Usage: java DictionaryCompiler [dictionary.txt [dictionary.bin [second]]]
+ *  
+ *  <br><br>With second, the book also holds every second guess. That makes
+ *  the second guess of a round as cheap as the first, but the book many
+ *  times larger.
+ */
+public class DictionaryCompiler {
+
+    private static final String DEFAULT_SOURCE = "dictionary.txt";
+    private static final String DEFAULT_TARGET = "dictionary.bin";
+
+    public static void main(String[] args) throws IOException {
+        Path source = Paths.get(args.length > 0 ? args[0] : DEFAULT_SOURCE);
+        Path target = Paths.get(args.length > 1 ? args[1] : DEFAULT_TARGET);
+        long start = System.nanoTime();
+        HangmanDictionary dictionary = DictionaryLoader.load(source);
+        compile(dictionary, target);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Compiled " + dictionary.size() + " words from " + source 
+                + " to " + target + " in " + millis + " ms.");
+        start = System.nanoTime();
+        Path book = bookFor(target);
+        boolean secondGuesses = args.length > 2 && args[2].equals("second");
+        OpeningBook.build(dictionary, secondGuesses).write(book);
+        millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Wrote the opening book to " + book + " in " + millis + " ms.");
+    }
+
+    /**
+     * Get the file the opening book of a compiled dictionary is kept in:
+     * the same name, ending in .book instead of .bin.
+     * pre: compiled != null
+     * @param compiled the compiled dictionary
+     * @return the file for its opening book
+     */
+    public static Path bookFor(Path compiled) {
+        String name = compiled.getFileName().toString();
+        if (name.endsWith(".bin")) {
+            name = name.substring(0, name.length() - ".bin".length());
+        }
+        return compiled.resolveSibling(name + ".book");
+    }
+
+    /**
+     * Write a dictionary to a file in the compiled format, replacing the
+     * file if it exists.
+     * pre: dictionary != null, target != null, every character of every
+     * word is at most 0xFF
+     * @param dictionary the words to write
+     * @param target the file to write
+     * @throws IOException if the file can't be written
+     */
+    public static void compile(HangmanDictionary dictionary, Path target) 
+            throws IOException {
+        if (dictionary == null || target == null) {
+            throw new IllegalArgumentException("Parameters to method may not be null.");
+        }
+        int size = BufferDictionary.encodedSize(dictionary);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            BufferDictionary.write(dictionary, out);
+            out.force();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads a dictionary file straight into a HangmanDictionary.
+ * <br>
+ * Words are separated by white space. The file is read through a
+ * FileChannel in large blocks and split into words by hand, so no regular
+ * expressions or per character decoding are involved. ASCII words are
+ * lowercased in place before they are turned into Strings; words with
+ * other characters are decoded as UTF-8 and lowercased by String.
+ * Duplicate words are dropped and the words of each length are sorted,
+ * the same words in the same order a TreeSet of the file would hold.
+ */
+public class DictionaryLoader {
+  private static final int BLOCK_SIZE = 1 << 16;
+
+  private final ArrayList<ArrayList<String>> byLength = new ArrayList<>();
+  private byte[] word = new byte[64];
+  private int wordLength;
+  private boolean ascii = true;
+
+  private DictionaryLoader() {
+    byLength.add(new ArrayList<String>()); // the empty dictionary still has length 0
+  }
+
+  /**
+   * Load the words in the given file.
+   * pre: file != null
+   *
+   * @param file The dictionary file.
+   * @return the indexed words of the file.
+   * @throws IOException if the file can't be read.
+   */
+  public static HangmanDictionary load(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("The file may not be null.");
+    }
+    DictionaryLoader loader = new DictionaryLoader();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+      while (channel.read(block) >= 0) {
+        block.flip();
+        loader.split(block.array(), block.limit());
+        block.clear();
+      }
+    }
+    loader.endWord();
+    return new ArrayDictionary(loader.buckets());
+  }
+
+  /**
+   * Load a dictionary file of either kind: one compiled by
+   * DictionaryCompiler, which must end in .bin and is mapped, or a text
+   * file, which is loaded.
+   * pre: file != null
+   *
+   * @param file The dictionary file.
+   * @return the indexed words of the file.
+   * @throws IOException if the file can't be read.
+   */
+  public static HangmanDictionary open(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("The file may not be null.");
+    }
+    return file.toString().endsWith(".bin") ? HangmanDictionary.map(file) : load(file);
+  }
+
+  // Split a block of the file into words. A word may continue into the
+  // next block, so the current word is only ended by white space.
+  private void split(byte[] block, int length) {
+    for (int i = 0; i < length; i++) {
+      byte b = block[i];
+      if (isWhitespace(b)) {
+        endWord();
+      } else {
+        if ('A' <= b && b <= 'Z') {
+          b += 'a' - 'A';
+        } else if (b < 0) {
+          ascii = false;
+        }
+        if (wordLength == word.length) {
+          word = Arrays.copyOf(word, wordLength * 2);
+        }
+        word[wordLength++] = b;
+      }
+    }
+  }
+
+  private void endWord() {
+    if (wordLength == 0) {
+      return;
+    }
+    String next = ascii ? new String(word, 0, wordLength, StandardCharsets.US_ASCII)
+        : new String(word, 0, wordLength, StandardCharsets.UTF_8).toLowerCase();
+    while (byLength.size() <= next.length()) {
+      byLength.add(new ArrayList<String>());
+    }
+    byLength.get(next.length()).add(next);
+    wordLength = 0;
+    ascii = true;
+  }
+
+  // Sort each length and drop the duplicates.
+  private String[][] buckets() {
+    String[][] result = new String[byLength.size()][];
+    for (int len = 0; len < result.length; len++) {
+      String[] words = byLength.get(len).toArray(new String[0]);
+      Arrays.sort(words);
+      int unique = 0;
+      for (int i = 0; i < words.length; i++) {
+        if (unique == 0 || !words[i].equals(words[unique - 1])) {
+          words[unique++] = words[i];
+        }
+      }
+      result[len] = Arrays.copyOf(words, unique);
+    }
+    return result;
+  }
+
+  // The ASCII white space Scanner splits words on.
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B
+        || (0x1C <= b && b <= 0x1F);
+  }
+}
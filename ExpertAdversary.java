@@ -0,0 +1,273 @@
+import java.lang.System.Logger.Level;
+import java.util.Arrays;
+
+/**
+ * The adversary for HangmanDifficulty.EXPERT. The other difficulties only
+ * look at the sizes of the families a guess splits the words into. This
+ * one searches the rest of the round and picks the family that forces the
+ * most wrong guesses on a guesser who plays perfectly from then on.
+ * <br>
+ * The value of a set of candidate words is the number of wrong guesses the
+ * best guesser still has to make before only one word is left, when every
+ * guess is answered with the worst family for the guesser. Letters that
+ * put every candidate in the same family are never worth guessing, and
+ * that includes every letter guessed so far, so the value depends only on
+ * the set. Values are kept in a transposition table keyed by a fingerprint
+ * of the set, so sets reached by guessing the same letters in a different
+ * order, or seen in an earlier round, are only searched once.
+ * <br>
+ * The search looks a limited number of guesses ahead, counting the sets at
+ * the horizon as 0, and is deepened one guess at a time until it is exact
+ * or it has read BUDGET word positions. Then the deepest complete answer
+ * is used. The budget counts work, not time, so a manager that is given
+ * the same rounds and guesses makes the same choices however loaded or
+ * slow the machine is, and seeded games at EXPERT are as reproducible as at
+ * the other difficulties. On a typical machine the budget takes about 30 ms.
+ * A search that still runs for TIMEOUT_NANOS is stopped all the same, as a
+ * safety net, and a warning is logged, since that choice depends on timing.
+ * A value never needs to be known past the wrong guesses the guesser has
+ * left, so each set is searched with that as a cap and the search of a
+ * guess stops as soon as one family reaches the best value found so far.
+ * If not even one guess ahead can be searched within the budget, which is
+ * always the case for more than MAX_WORDS candidates, choose gives up and
+ * the guess is played as HARD plays it.
+ * <br>
+ * An adversary is not thread safe; each HangmanManager has its own.
+ */
+class ExpertAdversary {
+  /** The most word positions choose reads while it searches. */
+  static final long BUDGET = 1_000_000L;
+  /** How long choose may search, in nanoseconds, whatever is left of BUDGET. */
+  static final long TIMEOUT_NANOS = 1_000_000_000L;
+  /** The most candidates choose searches; it gives up on more. */
+  static final int MAX_WORDS = 1 << 15;
+
+  private static final int MAX_ENTRIES = 1 << 16;
+  private static final int EXACT = 0xFF; // depth of values searched to the end
+  private static final OutOfTime OUT_OF_TIME = new OutOfTime();
+  private static final System.Logger LOG = System.getLogger(ExpertAdversary.class.getName());
+
+  private final HangmanDictionary dictionary;
+  // fingerprint -> depth << 9 | at least << 8 | value
+  private final LongIntMap table = new LongIntMap();
+  private final LongIntMap counts = new LongIntMap();
+  private int length;
+  private long work; // word positions left to read
+  private long deadline;
+  private int horizonHits;
+
+  /**
+   * Create an adversary for words from the given dictionary.
+   * pre: dictionary != null
+   *
+   * @param dictionary The words the rounds are played with.
+   */
+  ExpertAdversary(HangmanDictionary dictionary) {
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Pick the family a guess keeps.
+   * pre: dictionary.hasPositions(length), 0 <= letter < LETTERS,
+   *      families holds the positions of letter in the words in ids[from, to),
+   *      guessesLeft >= 1
+   *
+   * @param length      The length of the words.
+   * @param ids         The ids of the candidate words.
+   * @param from        The first candidate in ids.
+   * @param to          One past the last candidate in ids.
+   * @param letter      The letter guessed, as given by letterIndex.
+   * @param families    The positions of the letter in each family.
+   * @param sizes       The number of words in each family.
+   * @param guessesLeft The wrong guesses the guesser had before this guess.
+   * @return the index of the chosen family, or -1 if the budget did not
+   *         allow looking past this guess.
+   */
+  int choose(int length, int[] ids, int from, int to, int letter, long[] families,
+      int[] sizes, int guessesLeft) {
+    work = BUDGET;
+    deadline = System.nanoTime() + TIMEOUT_NANOS;
+    if (to - from > MAX_WORDS) {
+      return -1;
+    }
+    this.length = length;
+    LongIntMap index = new LongIntMap();
+    int[][] members = new int[families.length][];
+    for (int i = 0; i < families.length; i++) {
+      index.put(families[i], i);
+      members[i] = new int[sizes[i]];
+    }
+    int[] filled = new int[families.length];
+    for (int i = from; i < to; i++) {
+      int family = index.get(dictionary.positions(length, letter, ids[i]));
+      members[family][filled[family]++] = ids[i];
+    }
+    long[] fingerprints = new long[families.length];
+    for (int i = 0; i < families.length; i++) {
+      fingerprints[i] = fingerprint(members[i]);
+    }
+
+    int chosen = -1;
+    try {
+      for (int depth = 0; depth <= HangmanDictionary.LETTERS; depth++) {
+        int before = horizonHits;
+        int best = 0;
+        int bestScore = -1;
+        for (int i = 0; i < families.length; i++) {
+          int miss = families[i] == 0 ? 1 : 0;
+          int score = miss + value(members[i], fingerprints[i], depth, guessesLeft - miss);
+          if (score > bestScore || (score == bestScore && sizes[i] > sizes[best])) {
+            best = i;
+            bestScore = score;
+          }
+        }
+        if (depth > 0 || horizonHits == before) {
+          chosen = best; // not looking ahead at all is no better than HARD
+        }
+        if (horizonHits == before) {
+          break; // exact, looking further ahead changes nothing
+        }
+      }
+    } catch (OutOfTime e) {
+      // Keep the answer of the deepest search that finished, if any did.
+      if (work >= 0) {
+        LOG.log(Level.WARNING, "EXPERT ran out of time choosing among " + (to - from)
+            + " words, so its choice depends on the machine's speed.");
+      }
+    }
+    if (table.size() > MAX_ENTRIES) {
+      table.clear();
+    }
+    return chosen;
+  }
+
+  /*
+   * The wrong guesses a perfect guesser still has to make on set, looking
+   * depth guesses ahead, or cap if that is smaller.
+   */
+  private int value(int[] set, long fingerprint, int depth, int cap) {
+    if (set.length <= 1 || cap <= 0) {
+      return 0;
+    }
+    int entry = table.get(fingerprint);
+    if (entry >= 0 && (entry >>> 9) >= depth) {
+      int entryValue = entry & 0xFF;
+      boolean atLeast = (entry & 0x100) != 0;
+      if (!atLeast || entryValue >= cap) {
+        if ((entry >>> 9) != EXACT) {
+          horizonHits++;
+        }
+        return Math.min(entryValue, cap);
+      }
+    }
+    if (depth == 0) {
+      horizonHits++;
+      return 0;
+    }
+    spend(HangmanDictionary.LETTERS * set.length);
+    int before = horizonHits;
+    int[] letters = usefulLetters(set);
+    int best = letters.length == 0 ? 0 : cap;
+    for (int i = 0; i < letters.length && best > 0; i++) {
+      spend(set.length);
+      int letter = letters[i] & 0x1F;
+      int[][] families = split(set, letter);
+      int worst = 0;
+      for (int j = 0; j < families.length && worst < best; j++) {
+        int miss = dictionary.positions(length, letter, families[j][0]) == 0 ? 1 : 0;
+        worst = Math.max(worst, miss
+            + value(families[j], fingerprint(families[j]), depth - 1, best - miss));
+      }
+      best = Math.min(best, worst);
+    }
+    int entryDepth = horizonHits == before ? EXACT : depth;
+    table.put(fingerprint, entryDepth << 9 | (best == cap ? 0x100 : 0) | best);
+    return best;
+  }
+
+  // Take cost word positions from the budget before reading them. Reading
+  // them costs far more than reading the clock, so the time is checked too.
+  private void spend(int cost) {
+    work -= cost;
+    if (work < 0 || System.nanoTime() > deadline) {
+      throw OUT_OF_TIME;
+    }
+  }
+
+  // The letters that split set into more than one family, most promising
+  // first: the smaller the largest family, the better the guess. Each is
+  // returned as size << 5 | letter.
+  private int[] usefulLetters(int[] set) {
+    int[] letters = new int[HangmanDictionary.LETTERS];
+    int n = 0;
+    for (int letter = 0; letter < HangmanDictionary.LETTERS; letter++) {
+      counts.clear();
+      int largest = 0;
+      for (int id : set) {
+        largest = Math.max(largest, counts.add(dictionary.positions(length, letter, id), 1));
+      }
+      if (counts.size() > 1) {
+        letters[n++] = largest << 5 | letter;
+      }
+    }
+    letters = Arrays.copyOf(letters, n);
+    Arrays.sort(letters);
+    return letters;
+  }
+
+  // The families letter splits set into, the family without the letter
+  // first, then from largest to smallest.
+  private int[][] split(int[] set, int letter) {
+    counts.clear();
+    long[] masks = new long[set.length];
+    for (int i = 0; i < set.length; i++) {
+      masks[i] = dictionary.positions(length, letter, set[i]);
+      counts.add(masks[i], 1);
+    }
+    long[] keys = counts.keys();
+    int[][] families = new int[keys.length][];
+    LongIntMap index = new LongIntMap();
+    for (int i = 0; i < keys.length; i++) {
+      families[i] = new int[counts.get(keys[i])];
+      index.put(keys[i], i);
+    }
+    int[] filled = new int[keys.length];
+    for (int i = 0; i < set.length; i++) {
+      int family = index.get(masks[i]);
+      families[family][filled[family]++] = set[i];
+    }
+    int miss = index.get(0L);
+    if (miss > 0) {
+      int[] temp = families[0];
+      families[0] = families[miss];
+      families[miss] = temp;
+    }
+    Arrays.sort(families, miss >= 0 ? 1 : 0, families.length, (a, b) -> b.length - a.length);
+    return families;
+  }
+
+  // Identifies a set of words of the current length regardless of order.
+  private long fingerprint(int[] set) {
+    long fingerprint = set.length;
+    for (int id : set) {
+      fingerprint += mix((long) length << 32 | id);
+    }
+    return fingerprint;
+  }
+
+  private static long mix(long x) {
+    x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+    x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+    return x ^ (x >>> 31);
+  }
+
+  // Unwinds a search that ran out of budget or time. Shared and without a
+  // stack trace, so throwing it costs nothing.
+  private static class OutOfTime extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private OutOfTime() {
+      super("Out of time.", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,251 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many concurrent games of Evil Hangman. Each player has a
+ * GameSession holding the state of their round; one read only
+ * HangmanDictionary backs every session.
+ * <br>
+ * Requests are asynchronous. Each one runs as its own task on a virtual
+ * thread when the runtime has them (Java 21 and later) and on a cached
+ * thread pool otherwise, so a slow request never holds up the others.
+ * A session is dropped when its round ends or the player quits.
+ */
+public class GameServer implements AutoCloseable {
+  private final HangmanDictionary dictionary;
+  private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong();
+  private final ExecutorService executor;
+  private volatile GuessMetrics guessMetrics; // for new sessions, null for none
+  private volatile Long seed; // for new sessions, null for unseeded
+
+  /**
+   * Create a server that plays with the given dictionary.
+   * pre: dictionary != null, dictionary.size() > 0
+   *
+   * @param dictionary The words every session plays with.
+   */
+  public GameServer(HangmanDictionary dictionary) {
+    if (dictionary == null || dictionary.size() == 0) {
+      throw new IllegalArgumentException("Sorry, the dictionary appears to be empty."
+          + "Please use a valid dictionary.");
+    }
+    this.dictionary = dictionary;
+    executor = newTaskExecutor();
+  }
+
+  /**
+   * Report every guess of the sessions started from now on to a metrics sink.
+   *
+   * @param metrics The sink to report to, or null to stop reporting.
+   */
+  public void setGuessMetrics(GuessMetrics metrics) {
+    guessMetrics = metrics;
+  }
+
+  /**
+   * Seed the secret word generators of the sessions started from now on.
+   * Each session's generator is seeded from seed and the session's id, so
+   * a server seeded the same way and sent the same requests, one game at a
+   * time, plays the same games.
+   *
+   * @param seed The seed, or null for unseeded generators.
+   */
+  public void setSeed(Long seed) {
+    this.seed = seed;
+  }
+
+  /*
+   * An executor that runs every task on a new virtual thread, if the
+   * runtime has them, else on a cached pool of platform threads.
+   */
+  static ExecutorService newTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  /**
+   * Start a game in a new session.
+   * pre: numWords(wordLen) > 0, 1 <= numGuesses <= GameSession.MAX_GUESSES, diff != null
+   *
+   * @param wordLen    the length of the word to pick.
+   * @param numGuesses the number of wrong guesses before the player loses.
+   * @param diff       The difficulty for the game.
+   * @return the state of the new game, including its session id.
+   */
+  public CompletableFuture<GameSession.Status> newGame(int wordLen, int numGuesses,
+      HangmanDifficulty diff) {
+    return CompletableFuture.supplyAsync(() -> {
+      long id = nextId.incrementAndGet();
+      GameSession session = new GameSession(id, dictionary, guessMetrics,
+          GameSession.seeded(seed, id));
+      GameSession.Status status = session.start(wordLen, numGuesses, diff);
+      sessions.put(session.getId(), session);
+      return status;
+    }, executor);
+  }
+
+  /**
+   * Guess a letter in a session's game. The session is dropped once the
+   * game is over.
+   * pre: the session exists, guess is an English letter that has not been guessed
+   *
+   * @param sessionId The session to guess in.
+   * @param guess     The letter to guess.
+   * @return the state of the game after the guess.
+   */
+  public CompletableFuture<GameSession.Status> guess(long sessionId, char guess) {
+    return CompletableFuture.supplyAsync(() -> {
+      GameSession session = session(sessionId);
+      GameSession.Status status = session.guess(guess);
+      if (status.isOver()) {
+        sessions.remove(sessionId);
+      }
+      return status;
+    }, executor);
+  }
+
+  /**
+   * Get the state of a session's game.
+   * pre: the session exists
+   *
+   * @param sessionId The session to look at.
+   * @return the state of the game.
+   */
+  public CompletableFuture<GameSession.Status> status(long sessionId) {
+    return CompletableFuture.supplyAsync(() -> session(sessionId).status(), executor);
+  }
+
+  /**
+   * Quit a session's game and drop the session. Does nothing if there
+   * is no such session.
+   *
+   * @param sessionId The session to quit.
+   */
+  public void quit(long sessionId) {
+    sessions.remove(sessionId);
+  }
+
+  /**
+   * Get the number of sessions with a game in progress.
+   *
+   * @return the number of live sessions.
+   */
+  public int numSessions() {
+    return sessions.size();
+  }
+
+  /**
+   * Get the dictionary every session plays with.
+   *
+   * @return the shared dictionary.
+   */
+  public HangmanDictionary getDictionary() {
+    return dictionary;
+  }
+
+  private GameSession session(long sessionId) {
+    GameSession session = sessions.get(sessionId);
+    if (session == null) {
+      throw new IllegalArgumentException("There is no session " + sessionId + ".");
+    }
+    return session;
+  }
+
+  /**
+   * Stop taking requests. Requests already submitted are finished.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  /**
+   * Load test a server in process: start many games at once and have a
+   * local client play each one to the end, guessing letters by frequency.
+   * Reports the sessions finished per second, the latency of guesses and
+   * what the guesses cost the server.
+   * <br>
+   * Usage: java GameServer [dictionary [sessions [wordLen [numGuesses]]]]
+   * <br>
+   * The dictionary may be a text file or one compiled by DictionaryCompiler
+   * (ending in .bin). Defaults: dictionary.txt, 10000 sessions, 8 letters,
+   * 10 wrong guesses.
+   *
+   * @param args the optional settings, in order.
+   * @throws IOException if the dictionary can't be read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path file = Paths.get(args.length > 0 ? args[0] : "dictionary.txt");
+    int numSessions = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    int wordLen = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+    int numGuesses = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+    HangmanDictionary dictionary = DictionaryLoader.open(file);
+    try (GameServer server = new GameServer(dictionary)) {
+      GuessStats stats = new GuessStats();
+      server.setGuessMetrics(stats);
+      List<long[]> latencies = new ArrayList<>();
+      List<CompletableFuture<GameSession.Status>> games = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < numSessions; i++) {
+        long[] sessionLatencies = new long[HangmanDictionary.LETTERS];
+        latencies.add(sessionLatencies);
+        games.add(server.newGame(wordLen, numGuesses, HangmanDifficulty.HARD)
+            .thenCompose(status -> play(server, status, 0, sessionLatencies)));
+      }
+      int wins = 0;
+      for (CompletableFuture<GameSession.Status> game : games) {
+        if (game.join().isWon()) {
+          wins++;
+        }
+      }
+      long nanos = System.nanoTime() - start;
+      long[] all = latencies.stream().flatMapToLong(Arrays::stream)
+          .filter(latency -> latency > 0).sorted().toArray();
+      System.out.printf("%d sessions, %d won, in %d ms: %.0f sessions/sec%n", numSessions,
+          wins, TimeUnit.NANOSECONDS.toMillis(nanos), numSessions * 1e9 / nanos);
+      System.out.printf("%d guesses, latency p50 %d us, p99 %d us, max %d us%n", all.length,
+          percentile(all, 0.50) / 1000, percentile(all, 0.99) / 1000,
+          percentile(all, 1.0) / 1000);
+      System.out.println(stats);
+    }
+  }
+
+  // The local client: guess letters by frequency until the game is over,
+  // recording how long each guess took.
+  private static CompletableFuture<GameSession.Status> play(GameServer server,
+      GameSession.Status status, int guessesMade, long[] latencies) {
+    if (status.isOver()) {
+      return CompletableFuture.completedFuture(status);
+    }
+    long sent = System.nanoTime();
+    return server.guess(status.getSessionId(), HangmanGuesser.BY_FREQUENCY.charAt(guessesMade))
+        .thenCompose(next -> {
+          latencies[guessesMade] = System.nanoTime() - sent;
+          return play(server, next, guessesMade + 1, latencies);
+        });
+  }
+
+  // pre: sorted is in ascending order
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
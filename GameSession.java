@@ -0,0 +1,237 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * One player's game of Evil Hangman on a GameServer. A session owns the
+ * state of its round, in its own HangmanManager, while the words come from
+ * the dictionary every session shares.
+ * <br>
+ * Every method is synchronized, so a session may be used from any thread,
+ * one request at a time.
+ */
+public class GameSession {
+  /** The most wrong guesses a round may allow, as in HangmanMain. */
+  public static final int MAX_GUESSES = 25;
+
+  private final long id;
+  private final HangmanManager manager;
+  private boolean playing;
+  private String answer;
+
+  /**
+   * Create a session that plays with the given dictionary.
+   * pre: dictionary != null, dictionary.size() > 0
+   *
+   * @param id         The id of this session.
+   * @param dictionary The words to play with.
+   */
+  public GameSession(long id, HangmanDictionary dictionary) {
+    this(id, dictionary, null);
+  }
+
+  /**
+   * Create a session that plays with the given dictionary and reports
+   * every guess to a metrics sink.
+   * pre: dictionary != null, dictionary.size() > 0
+   *
+   * @param id         The id of this session.
+   * @param dictionary The words to play with.
+   * @param metrics    The sink for the cost of each guess, or null for none.
+   */
+  public GameSession(long id, HangmanDictionary dictionary, GuessMetrics metrics) {
+    this(id, dictionary, metrics, null);
+  }
+
+  /**
+   * Create a session that plays with the given dictionary, reports every
+   * guess to a metrics sink and picks secret words with the given generator,
+   * so a session given a generator seeded the same way, and the same
+   * requests, plays the same games.
+   * pre: dictionary != null, dictionary.size() > 0, random is used by this session only
+   *
+   * @param id         The id of this session.
+   * @param dictionary The words to play with.
+   * @param metrics    The sink for the cost of each guess, or null for none.
+   * @param random     The generator for the secret words, or null for an
+   *                   unseeded one of the session's own.
+   */
+  public GameSession(long id, HangmanDictionary dictionary, GuessMetrics metrics,
+      RandomGenerator random) {
+    this.id = id;
+    manager = new HangmanManager(dictionary, false);
+    manager.setGuessMetrics(metrics);
+    if (random != null) {
+      manager.setRandom(random);
+    }
+  }
+
+  /*
+   * The generator a server seeded with seed gives the session with the
+   * given id, null if seed is null. The same seed and id always give a
+   * generator that makes the same choices.
+   */
+  static RandomGenerator seeded(Long seed, long id) {
+    return seed == null ? null : new SplittableRandom(seed + id);
+  }
+
+  /**
+   * Get the id of this session.
+   *
+   * @return the id of this session.
+   */
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Start a new round, abandoning any round in progress.
+   * pre: numWords(wordLen) > 0, 1 <= numGuesses <= MAX_GUESSES, diff != null
+   *
+   * @param wordLen    the length of the word to pick.
+   * @param numGuesses the number of wrong guesses before the player loses.
+   * @param diff       The difficulty for the round.
+   * @return the state of the new round.
+   */
+  public synchronized Status start(int wordLen, int numGuesses, HangmanDifficulty diff) {
+    if (manager.numWords(wordLen) == 0) {
+      throw new IllegalArgumentException("I don't know any words with " + wordLen
+          + " letters.");
+    }
+    if (numGuesses < 1 || numGuesses > MAX_GUESSES || diff == null) {
+      throw new IllegalArgumentException("Pick between 1 and " + MAX_GUESSES
+          + " wrong guesses and a difficulty.");
+    }
+    manager.prepForRound(wordLen, numGuesses, diff);
+    playing = true;
+    answer = null;
+    return status();
+  }
+
+  /**
+   * Guess a letter in the round in progress.
+   * pre: isPlaying(), guess is an English letter that has not been guessed
+   *
+   * @param guess The letter to guess, in either case.
+   * @return the state of the round after the guess.
+   */
+  public synchronized Status guess(char guess) {
+    if (!playing) {
+      throw new IllegalStateException("There is no round in progress.");
+    }
+    guess = Character.toLowerCase(guess);
+    if (HangmanDictionary.letterIndex(guess) < 0) {
+      throw new IllegalArgumentException("That is not an English letter.");
+    }
+    if (manager.alreadyGuessed(guess)) {
+      throw new IllegalArgumentException("You already guessed that!");
+    }
+    manager.makeGuess(guess);
+    if (manager.getGuessesLeft() == 0 || manager.isSolved()
+        || allGuessed()) {
+      playing = false;
+      answer = manager.getSecretWord();
+    }
+    return status();
+  }
+
+  // Words with characters other than a - z can't be solved,
+  // so a round also ends once every letter has been guessed.
+  private boolean allGuessed() {
+    return manager.getGuessedLetters() == (1 << HangmanDictionary.LETTERS) - 1;
+  }
+
+  /**
+   * Check if a round is in progress.
+   *
+   * @return true if a round was started and is not over yet.
+   */
+  public synchronized boolean isPlaying() {
+    return playing;
+  }
+
+  /**
+   * Get the state of the current round.
+   * pre: a round was started
+   *
+   * @return the state of the current round.
+   */
+  public synchronized Status status() {
+    return new Status(id, manager.getPattern(), manager.getGuessesLeft(),
+        manager.getGuessesMade(), answer);
+  }
+
+  /**
+   * The state of a session's round at one point in time, as sent to a player.
+   */
+  public static class Status {
+    private final long sessionId;
+    private final String pattern;
+    private final int guessesLeft;
+    private final String guessesMade;
+    private final String answer;
+
+    private Status(long sessionId, String pattern, int guessesLeft, String guessesMade,
+        String answer) {
+      this.sessionId = sessionId;
+      this.pattern = pattern;
+      this.guessesLeft = guessesLeft;
+      this.guessesMade = guessesMade;
+      this.answer = answer;
+    }
+
+    /**
+     * @return the id of the session.
+     */
+    public long getSessionId() {
+      return sessionId;
+    }
+
+    /**
+     * @return the pattern, with '-' for the letters not revealed yet.
+     */
+    public String getPattern() {
+      return pattern;
+    }
+
+    /**
+     * @return the number of wrong guesses the player has left.
+     */
+    public int getGuessesLeft() {
+      return guessesLeft;
+    }
+
+    /**
+     * @return the letters guessed so far, in the form [a, c, e].
+     */
+    public String getGuessesMade() {
+      return guessesMade;
+    }
+
+    /**
+     * @return true if the round is over.
+     */
+    public boolean isOver() {
+      return answer != null;
+    }
+
+    /**
+     * @return true if the round is over and the player solved the word.
+     */
+    public boolean isWon() {
+      return isOver() && pattern.indexOf('-') < 0;
+    }
+
+    /**
+     * @return the secret word once the round is over, null until then.
+     */
+    public String getAnswer() {
+      return answer;
+    }
+
+    @Override
+    public String toString() {
+      return "session " + sessionId + ": " + pattern + ", guesses left: " + guessesLeft
+          + ", guessed so far: " + guessesMade + (isOver() ? ", answer: " + answer : "");
+    }
+  }
+}
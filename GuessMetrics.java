@@ -0,0 +1,25 @@
+/**
+ * Where a HangmanManager reports what each guess cost, once it is given a
+ * sink with setGuessMetrics. Managers without one measure nothing.
+ * <br>
+ * One sink may be shared by managers on any number of threads, so
+ * implementations must be thread safe. guessMade is called on the thread
+ * that made the guess, right after it, and should return quickly.
+ */
+public interface GuessMetrics {
+  /**
+   * Record one guess.
+   *
+   * @param wordLength     The length of the words in the round.
+   * @param diff           The difficulty of the round.
+   * @param wordsBefore    The number of words still possible before the guess.
+   * @param wordsAfter     The number of words still possible after the guess.
+   * @param families       The number of families the guess split the words into.
+   * @param nanos          How long the guess took to split the words and keep
+   *                       a family, in nanoseconds.
+   * @param allocatedBytes The bytes the guess allocated on the heap, or -1 if
+   *                       the JVM can't tell.
+   */
+  void guessMade(int wordLength, HangmanDifficulty diff, int wordsBefore, int wordsAfter,
+      int families, long nanos, long allocatedBytes);
+}
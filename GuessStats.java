@@ -0,0 +1,209 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A GuessMetrics sink that keeps histograms of the time each guess took and
+ * the number of families it split the words into, with the mean number of
+ * words before and after a guess and the bytes it allocated.
+ * <br>
+ * Recording a guess only adds to striped counters, so any number of
+ * managers on any number of threads can share one GuessStats. The numbers
+ * can be read from the getters, or through JMX once the stats are
+ * registered with register.
+ */
+public class GuessStats implements GuessMetrics, GuessStatsMBean {
+  private final Histogram nanos = new Histogram();
+  private final Histogram families = new Histogram();
+  private final Histogram allocatedBytes = new Histogram();
+  private final LongAdder wordsBefore = new LongAdder();
+  private final LongAdder wordsAfter = new LongAdder();
+
+  @Override
+  public void guessMade(int wordLength, HangmanDifficulty diff, int wordsBefore,
+      int wordsAfter, int families, long nanos, long allocatedBytes) {
+    this.nanos.record(nanos);
+    this.families.record(families);
+    if (allocatedBytes >= 0) {
+      this.allocatedBytes.record(allocatedBytes);
+    }
+    this.wordsBefore.add(wordsBefore);
+    this.wordsAfter.add(wordsAfter);
+  }
+
+  /**
+   * Register these stats with the platform MBean server, under
+   * hangman:type=GuessStats,name=name.
+   * pre: name != null, no other stats are registered under name
+   *
+   * @param name The name to tell these stats apart from others.
+   * @return the name the stats were registered under.
+   * @throws JMException if the stats can't be registered.
+   */
+  public ObjectName register(String name) throws JMException {
+    if (name == null) {
+      throw new IllegalArgumentException("Violation of precondition in register.");
+    }
+    ObjectName objectName = new ObjectName("hangman:type=GuessStats,name="
+        + ObjectName.quote(name));
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    server.registerMBean(this, objectName);
+    return objectName;
+  }
+
+  @Override
+  public long getGuesses() {
+    return nanos.count();
+  }
+
+  @Override
+  public double getMeanNanos() {
+    return nanos.mean();
+  }
+
+  @Override
+  public long getP50Nanos() {
+    return nanos.percentile(0.50);
+  }
+
+  @Override
+  public long getP99Nanos() {
+    return nanos.percentile(0.99);
+  }
+
+  @Override
+  public long getMaxNanos() {
+    return nanos.max();
+  }
+
+  @Override
+  public long[] getNanosHistogram() {
+    return nanos.buckets();
+  }
+
+  @Override
+  public double getMeanFamilies() {
+    return families.mean();
+  }
+
+  @Override
+  public long getMaxFamilies() {
+    return families.max();
+  }
+
+  @Override
+  public long[] getFamiliesHistogram() {
+    return families.buckets();
+  }
+
+  @Override
+  public double getMeanWordsBefore() {
+    long count = getGuesses();
+    return count == 0 ? 0 : (double) wordsBefore.sum() / count;
+  }
+
+  @Override
+  public double getMeanWordsAfter() {
+    long count = getGuesses();
+    return count == 0 ? 0 : (double) wordsAfter.sum() / count;
+  }
+
+  @Override
+  public double getMeanAllocatedBytes() {
+    return allocatedBytes.count() == 0 ? -1 : allocatedBytes.mean();
+  }
+
+  @Override
+  public long getMaxAllocatedBytes() {
+    return allocatedBytes.count() == 0 ? -1 : allocatedBytes.max();
+  }
+
+  @Override
+  public void reset() {
+    nanos.reset();
+    families.reset();
+    allocatedBytes.reset();
+    wordsBefore.reset();
+    wordsAfter.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d guesses, %.0f ns mean, p50 %d ns, p99 %d ns, max %d ns, "
+        + "%.1f families, %.1f -> %.1f words, %.0f bytes allocated", getGuesses(),
+        getMeanNanos(), getP50Nanos(), getP99Nanos(), getMaxNanos(), getMeanFamilies(),
+        getMeanWordsBefore(), getMeanWordsAfter(), getMeanAllocatedBytes());
+  }
+
+  // Counts non-negative values in power of two buckets.
+  private static class Histogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    private void record(long value) {
+      value = Math.max(0, value);
+      buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+      sum.add(value);
+      max.accumulate(value);
+    }
+
+    private long count() {
+      long count = 0;
+      for (int i = 0; i < buckets.length(); i++) {
+        count += buckets.get(i);
+      }
+      return count;
+    }
+
+    private double mean() {
+      long count = count();
+      return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    private long max() {
+      return max.get();
+    }
+
+    // The top of the bucket holding the value at fraction of the way up,
+    // but never more than the largest value.
+    private long percentile(double fraction) {
+      long[] counts = buckets();
+      long count = 0;
+      for (long bucket : counts) {
+        count += bucket;
+      }
+      long rank = (long) Math.ceil(fraction * count);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank && seen > 0) {
+          return Math.min(max(), i == 0 ? 0 : (1L << i) - 1);
+        }
+      }
+      return 0;
+    }
+
+    // The counts are read one at a time, so the result is only a snapshot
+    // while other threads keep recording.
+    private long[] buckets() {
+      long[] counts = new long[buckets.length()];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buckets.get(i);
+      }
+      return counts;
+    }
+
+    private void reset() {
+      for (int i = 0; i < buckets.length(); i++) {
+        buckets.set(i, 0);
+      }
+      sum.reset();
+      max.reset();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * The management interface of GuessStats, as seen through JMX.
+ * Histograms are bucketed by powers of two: bucket 0 counts the values
+ * of 0, and bucket i the values from 2^(i-1) to 2^i - 1.
+ */
+public interface GuessStatsMBean {
+  /** @return the number of guesses recorded. */
+  long getGuesses();
+
+  /** @return the mean time of a guess, in nanoseconds. */
+  double getMeanNanos();
+
+  /** @return an upper bound on the median time of a guess, in nanoseconds. */
+  long getP50Nanos();
+
+  /** @return an upper bound on the 99th percentile time of a guess, in nanoseconds. */
+  long getP99Nanos();
+
+  /** @return the longest time of a guess, in nanoseconds. */
+  long getMaxNanos();
+
+  /** @return the number of guesses in each bucket of time, in nanoseconds. */
+  long[] getNanosHistogram();
+
+  /** @return the mean number of families a guess split the words into. */
+  double getMeanFamilies();
+
+  /** @return the most families a guess split the words into. */
+  long getMaxFamilies();
+
+  /** @return the number of guesses in each bucket of families. */
+  long[] getFamiliesHistogram();
+
+  /** @return the mean number of words still possible before a guess. */
+  double getMeanWordsBefore();
+
+  /** @return the mean number of words still possible after a guess. */
+  double getMeanWordsAfter();
+
+  /** @return the mean bytes a guess allocated, or -1 if the JVM can't tell. */
+  double getMeanAllocatedBytes();
+
+  /** @return the most bytes a guess allocated, or -1 if the JVM can't tell. */
+  long getMaxAllocatedBytes();
+
+  /** Forget every guess recorded so far. */
+  void reset();
+}
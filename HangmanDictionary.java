@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable index of the words in a Hangman dictionary. The words are
+ * bucketed by length once, when the index is built, so looking up how many
+ * words have a given length is O(1) and a round only ever has to look at
+ * the words of the length it was started with.
+ * <br>
+ * Within a bucket a word is identified by its index, its id. For buckets of
+ * words up to 64 letters long the index also holds, for every word and
+ * every letter a - z, a mask of the positions the letter occupies in the
+ * word (bit i for position i), so splitting words into families by a guess
+ * is one lookup per word.
+ * <br>
+ * An index is either built on the heap from a set of words, mapped from a
+ * file written by DictionaryCompiler, or copied off the heap.
+ */
+public abstract class HangmanDictionary {
+  /** The number of letters with precomputed positions, a - z. */
+  public static final int LETTERS = 26;
+
+  /**
+   * Build an index from the provided set of words.
+   * Words in each bucket keep the iteration order of the set.
+   * pre: words != null
+   *
+   * @param words The words to index.
+   * @return the index of the words.
+   */
+  public static HangmanDictionary of(Set<String> words) {
+    return new ArrayDictionary(ArrayDictionary.bucket(words));
+  }
+
+  /**
+   * Map an index written by DictionaryCompiler. Nothing is parsed or
+   * copied; the words are read straight from the mapped file, so every
+   * process that maps the same file shares its pages.
+   * pre: file != null
+   *
+   * @param file The compiled dictionary.
+   * @return the index held in the file.
+   * @throws IOException if the file can't be read or is not a compiled dictionary.
+   */
+  public static HangmanDictionary map(Path file) throws IOException {
+    return BufferDictionary.open(file);
+  }
+
+  /**
+   * Copy an index into memory outside the Java heap, in the format
+   * DictionaryCompiler writes. The copy holds its words and positions in
+   * one direct buffer, so it adds almost nothing to the heap however many
+   * words it has, and the garbage collector never has to trace them. Once
+   * the copy is made, dictionary is no longer needed.
+   * <br>
+   * The buffer counts against the JVM's direct memory limit, which is the
+   * maximum heap size unless -XX:MaxDirectMemorySize says otherwise.
+   * pre: dictionary != null, every character of every word is at most 0xFF
+   *
+   * @param dictionary The index to copy.
+   * @return an index of the same words, off the heap.
+   * @throws IllegalArgumentException if a word has a character over 0xFF
+   *                                  or the index is over 2 GB.
+   */
+  public static HangmanDictionary offHeap(HangmanDictionary dictionary) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("The dictionary may not be null.");
+    }
+    return BufferDictionary.copyOf(dictionary);
+  }
+
+  /**
+   * Get the index used for ch in the position tables.
+   *
+   * @param ch The character to look up.
+   * @return ch - 'a' if ch is a lower case English letter, -1 otherwise.
+   */
+  public static int letterIndex(char ch) {
+    return ('a' <= ch && ch <= 'z') ? ch - 'a' : -1;
+  }
+
+  /**
+   * Check if the positions of letters in words of the given length
+   * were precomputed.
+   *
+   * @param length The length of the words.
+   * @return true if positions(length, letter, id) may be used.
+   */
+  public abstract boolean hasPositions(int length);
+
+  /**
+   * Get the positions of a letter in a word.
+   * pre: hasPositions(length), 0 <= letter < LETTERS, 0 <= id < numWords(length)
+   *
+   * @param length The length of the word.
+   * @param letter The letter, as given by letterIndex.
+   * @param id     The id of the word.
+   * @return a mask with bit i set if the letter is at position i of the word.
+   */
+  public abstract long positions(int length, int letter, int id);
+
+  /**
+   * Find the positions of any character in a word of any length, for words
+   * and characters the position tables do not cover.
+   * pre: 0 <= id < numWords(length), mask.length >= (length + 63) / 64
+   *
+   * @param length The length of the word.
+   * @param ch     The character to find.
+   * @param id     The id of the word.
+   * @param mask   Set to the positions of ch in the word: bit i % 64 of
+   *               mask[i / 64] is set if ch is at position i.
+   */
+  public void positions(int length, char ch, int id, long[] mask) {
+    String word = word(length, id);
+    Arrays.fill(mask, 0, (length + 63) / 64, 0L);
+    for (int i = 0; i < length; i++) {
+      if (word.charAt(i) == ch) {
+        mask[i >>> 6] |= 1L << i;
+      }
+    }
+  }
+
+  /**
+   * Get a word by its id.
+   * pre: 0 <= id < numWords(length)
+   *
+   * @param length The length of the word.
+   * @param id     The id of the word.
+   * @return the word with the given id.
+   */
+  public abstract String word(int length, int id);
+
+  /**
+   * Get the number of words in this dictionary of the given length.
+   *
+   * @param length The given length to check.
+   * @return the number of words with the given length, 0 if there are none.
+   */
+  public abstract int numWords(int length);
+
+  /**
+   * Get the length of the longest word in this dictionary.
+   *
+   * @return the length of the longest word, 0 if the dictionary is empty.
+   */
+  public abstract int maxLength();
+
+  /**
+   * Get the total number of words in this dictionary.
+   *
+   * @return the number of words across every length.
+   */
+  public abstract int size();
+
+  /**
+   * Get a fingerprint of the words in this dictionary: a 64 bit hash of
+   * every word of every length, in id order. Dictionaries with the same
+   * words in the same order have the same fingerprint, whichever way they
+   * are stored, so files built from one dictionary, like an OpeningBook,
+   * can be checked against it.
+   * <br>
+   * This reads every word. ArrayDictionary remembers the result and a
+   * compiled dictionary keeps it in its header.
+   *
+   * @return the fingerprint of the words, never 0.
+   */
+  public long fingerprint() {
+    long hash = 0xCBF29CE484222325L; // 64 bit FNV-1a
+    for (int length = 0; length <= maxLength(); length++) {
+      int numWords = numWords(length);
+      hash = (hash ^ numWords) * 0x100000001B3L;
+      for (int id = 0; id < numWords; id++) {
+        String word = word(length, id);
+        for (int i = 0; i < length; i++) {
+          hash = (hash ^ word.charAt(i)) * 0x100000001B3L;
+        }
+      }
+    }
+    return hash == 0 ? 1 : hash;
+  }
+
+  /**
+   * Get a read only view of the words with the given length.
+   *
+   * @param length The length of the words.
+   * @return the words with the given length, in id order.
+   */
+  public List<String> words(final int length) {
+    final int numWords = numWords(length);
+    return new AbstractList<String>() {
+      @Override
+      public String get(int id) {
+        if (id < 0 || id >= numWords) {
+          throw new IndexOutOfBoundsException("No word with id " + id);
+        }
+        return word(length, id);
+      }
+
+      @Override
+      public int size() {
+        return numWords;
+      }
+    };
+  }
+}
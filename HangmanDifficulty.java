@@ -6,11 +6,14 @@
  * <br>MEDIUM picks the hardest word for three rounds, then the second hardest word,
  * then the hardest word for three rounds, then the second hardest word, and so forth.
  * <br>HARD always picks the hardest word.
+ * <br>EXPERT looks ahead to the end of the round and picks the family that
+ * forces the most wrong guesses on a guesser who plays perfectly. Words over
+ * 64 letters, and guesses other than a - z, are played as HARD.
  * @author scottm
  *
  */
 public enum HangmanDifficulty {
-    EASY, MEDIUM, HARD; 
+    EASY, MEDIUM, HARD, EXPERT;
     
     /**
      * Get the lowest possible int (ordinal value) for this Enum using 1 (not zero) based
@@ -27,6 +30,6 @@ public enum HangmanDifficulty {
      * @return the highest possible ordinal for this Enum using 1 based indexing.
      */
     public static int maxPossible() {
-        return HARD.ordinal() + 1;
+        return EXPERT.ordinal() + 1;
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * The Flight Recorder events a HangmanManager emits, so a recording of a
+ * game server shows each round and guess next to the GC, the JIT and the
+ * threads of the JVM.
+ * <br>
+ * The events are off by default, since a busy server makes many guesses a
+ * second, so the default and profile settings of the JDK record none of
+ * them. To record them, start a recording with settings that enable them,
+ * a copy of default.jfc (in the JDK's lib/jfr) with these elements added
+ * inside its configuration element:
+ * <pre>
+ * &lt;event name="hangman.Round"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ * &lt;/event&gt;
+ * &lt;event name="hangman.Guess"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ *   &lt;setting name="threshold"&gt;0 ms&lt;/setting&gt;
+ * &lt;/event&gt;
+ * &lt;event name="hangman.SecretWord"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ * &lt;/event&gt;
+ * </pre>
+ * passed as -XX:StartFlightRecording:settings=hangman.jfc or to jcmd
+ * JFR.start settings=hangman.jfc. A single event can also be turned on with
+ * its default settings, -XX:StartFlightRecording:+hangman.Guess#enabled=true.
+ * Without a threshold setting only guesses that take at least 1 ms are
+ * recorded.
+ * <br>
+ * Until a recording enables them, each event costs one check that the JIT
+ * folds away.
+ */
+final class HangmanEvents {
+  private HangmanEvents() {
+  }
+
+  @Name("hangman.Round")
+  @Label("Round Started")
+  @Category("Hangman")
+  @Description("A HangmanManager prepared a new round.")
+  @Enabled(false)
+  static final class Round extends Event {
+    @Label("Word Length")
+    int wordLength;
+
+    @Label("Wrong Guesses")
+    @Description("The wrong guesses the player may make.")
+    int guesses;
+
+    @Label("Difficulty")
+    String difficulty;
+
+    @Label("Words")
+    @Description("The words of the length, all still possible.")
+    int words;
+  }
+
+  @Name("hangman.Guess")
+  @Label("Guess")
+  @Category("Hangman")
+  @Description("A HangmanManager split the words by a guess and kept one family.")
+  @Enabled(false)
+  @Threshold("1 ms")
+  static final class Guess extends Event {
+    @Label("Word Length")
+    int wordLength;
+
+    @Label("Difficulty")
+    String difficulty;
+
+    @Label("Guess")
+    char guess;
+
+    @Label("Words Before")
+    @Description("The words still possible before the guess.")
+    int wordsBefore;
+
+    @Label("Words After")
+    @Description("The words still possible after the guess, the size of the chosen family.")
+    int wordsAfter;
+
+    @Label("Families")
+    @Description("The number of families the guess split the words into.")
+    int families;
+
+    @Label("Hit")
+    @Description("True if the guess revealed a letter.")
+    boolean hit;
+  }
+
+  @Name("hangman.SecretWord")
+  @Label("Secret Word")
+  @Category("Hangman")
+  @Description("A HangmanManager picked the secret word from the words left.")
+  @Enabled(false)
+  static final class SecretWord extends Event {
+    @Label("Word Length")
+    int wordLength;
+
+    @Label("Words")
+    @Description("The words still possible, one of which was picked.")
+    int words;
+  }
+}
@@ -0,0 +1,74 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A strategy for playing the guessing side of Hangman, used to play rounds
+ * without a person, for example by HangmanSimulator.
+ */
+public interface HangmanGuesser {
+  /** English letters from most to least frequent. */
+  String BY_FREQUENCY = "etaoinshrdlcumwfgypbvkjxqz";
+
+  /**
+   * Pick the next letter to guess in the round manager is playing.
+   * pre: manager != null, at least one letter a - z has not been guessed
+   *
+   * @param manager The manager playing the round.
+   * @return a letter a - z that has not been guessed this round.
+   */
+  char nextGuess(HangmanManager manager);
+
+  /**
+   * Get a guesser that always guesses the most frequent English letter
+   * it has not guessed yet.
+   *
+   * @return a guesser that guesses letters by their frequency.
+   */
+  static HangmanGuesser byFrequency() {
+    return manager -> {
+      for (int i = 0; i < BY_FREQUENCY.length(); i++) {
+        if (!manager.alreadyGuessed(BY_FREQUENCY.charAt(i))) {
+          return BY_FREQUENCY.charAt(i);
+        }
+      }
+      throw new IllegalStateException("Every letter has been guessed.");
+    };
+  }
+
+  /**
+   * Get a guesser that guesses a random letter it has not guessed yet.
+   * The guesser is not thread safe.
+   *
+   * @param seed The seed for the guesser's random numbers.
+   * @return a guesser that guesses random letters.
+   */
+  static HangmanGuesser random(long seed) {
+    return random(new SplittableRandom(seed));
+  }
+
+  /**
+   * Get a guesser that guesses a random letter it has not guessed yet,
+   * picked with the given generator. The guesser is not thread safe.
+   * pre: random != null
+   *
+   * @param random The generator for the guesser's random numbers.
+   * @return a guesser that guesses random letters.
+   */
+  static HangmanGuesser random(RandomGenerator random) {
+    if (random == null) {
+      throw new IllegalArgumentException("Violation of precondition in random.");
+    }
+    return manager -> {
+      int left = HangmanDictionary.LETTERS - Integer.bitCount(manager.getGuessedLetters());
+      if (left == 0) {
+        throw new IllegalStateException("Every letter has been guessed.");
+      }
+      int pick = random.nextInt(left);
+      for (char ch = 'a'; ; ch++) {
+        if (!manager.alreadyGuessed(ch) && pick-- == 0) {
+          return ch;
+        }
+      }
+    };
+  }
+}
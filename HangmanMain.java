@@ -1,10 +1,10 @@
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Scanner;
-import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
 /**
  *  Class HangmanMain is the driver program for the Hangman program.  It reads 
@@ -26,6 +26,9 @@ public class HangmanMain  {
     /* Name of the dictionary file. 
        change to dictionary.txt for full version of game. */
     private static final String DICTIONARY_FILE = "dictionary.txt";
+    /* The dictionary file compiled by DictionaryCompiler. Used instead of
+       DICTIONARY_FILE when present, since it does not need to be parsed. */
+    private static final String COMPILED_FILE = "dictionary.bin";
     // Used to tell HangmanManager if it should output debugging information.
     private static final boolean DEBUG = false;  
     private static final int MAX_GUESSES = 25;
@@ -36,8 +39,9 @@ public class HangmanMain  {
         System.out.println();
 
         // read in the dictionary and create the Hangman manager
-        Set<String> dictionary = getDictionary();
+        HangmanDictionary dictionary = getDictionary();
         HangmanManager hangman = new HangmanManager(dictionary, DEBUG);
+        useOpeningBook(hangman, dictionary);
         if (DEBUG) {
             showWordCounts(hangman);
         }
@@ -106,11 +110,11 @@ public class HangmanMain  {
         int diffChoiceAsInt = HangmanDifficulty.EASY.ordinal();
         do {
             System.out.println("What difficulty level do you want?");
-            // we number difficulties 1 to 3 for user
+            // we number difficulties 1 to 4 for user
             System.out.print("Enter a number between " 
-                    + (HangmanDifficulty.EASY.ordinal() + 1) 
+                    + HangmanDifficulty.minPossible() 
                     + "(EASIEST) " + "and " 
-                    + (HangmanDifficulty.HARD.ordinal() + 1) 
+                    + HangmanDifficulty.maxPossible() 
                     + "(HARDEST) : ");
             diffChoiceAsInt = Integer.parseInt(keyboard.nextLine());
             
@@ -150,28 +154,64 @@ public class HangmanMain  {
     }
 
 
-    // open the dictionary file. Return a list containing
-    // the words in the dictionary file.
+    // open the dictionary file, or the compiled one if there is one.
+    // Return the indexed words in the dictionary file and report 
+    // how long loading took.
     // If the dictionary file is not found the program ends
-    private static Set<String> getDictionary() {
-        Set<String> dictionary = new TreeSet<>();
+    private static HangmanDictionary getDictionary() {
+        HangmanDictionary dictionary = HangmanDictionary.of(
+                Collections.<String>emptySet());
+        Path compiled = Paths.get(COMPILED_FILE);
+        Path file = Files.exists(compiled) ? compiled : Paths.get(DICTIONARY_FILE);
         try {
-            Scanner input = new Scanner(new File(DICTIONARY_FILE));
-
-            while (input.hasNext())
-                dictionary.add(input.next().toLowerCase());
-            input.close();
+            long start = System.nanoTime();
+            if (file == compiled) {
+                dictionary = HangmanDictionary.map(compiled);
+            } else {
+                dictionary = offHeap(DictionaryLoader.load(file));
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Loaded " + dictionary.size() + " words in " 
+                    + millis + " ms.");
+            System.out.println();
         }
-        catch(FileNotFoundException e) {
+        catch(IOException e) {
             e.printStackTrace();
-            System.out.println("Unable to find this file: " + DICTIONARY_FILE);
+            System.out.println("Unable to read this file: " + file
+                    + " (" + e.getMessage() + ")");
             System.out.print("Program running in this directory: ");
             System.out.println(System.getProperty("user.dir"));
             System.out.println("Be sure the dictionary file is in "
                     + "that directory");
-            System.out.println("Returning empty set for dictioanary.");
+            System.out.println("Returning empty dictionary.");
+        }
+        return dictionary;
+    }
+
+
+    // Move the words off the heap for the rest of the game, so they don't
+    // weigh on the garbage collector, unless they can't be compiled.
+    private static HangmanDictionary offHeap(HangmanDictionary dictionary) {
+        try {
+            return HangmanDictionary.offHeap(dictionary);
+        } catch (IllegalArgumentException e) {
+            return dictionary;
+        }
+    }
+
+
+    // Answer the first guesses from the opening book DictionaryCompiler
+    // wrote next to the compiled dictionary, if the game is playing from it.
+    private static void useOpeningBook(HangmanManager hangman, HangmanDictionary dictionary) {
+        Path compiled = Paths.get(COMPILED_FILE);
+        Path book = DictionaryCompiler.bookFor(compiled);
+        if (Files.exists(compiled) && Files.exists(book)) {
+            try {
+                hangman.setOpeningBook(OpeningBook.read(book, dictionary));
+            } catch (IOException e) {
+                System.out.println("Playing without the opening book: " + e.getMessage());
+            }
         }
-        return Collections.unmodifiableSet(dictionary);
     }
 
 
@@ -179,9 +219,7 @@ public class HangmanMain  {
     private static void playGame(Scanner keyboard, HangmanManager hangman) {
         // keep asking for guesses as long as 
         // user has guesses left and puzzle not solved the puzzle
-        final String UNKNOWN = "-";
-        while (hangman.getGuessesLeft() > 0 
-        		&& hangman.getPattern().contains(UNKNOWN)) {
+        while (hangman.getGuessesLeft() > 0 && !hangman.isSolved()) {
         		
             System.out.println("guesses left: " + hangman.getGuessesLeft());
 
@@ -193,8 +231,9 @@ public class HangmanMain  {
             System.out.println("guessed so far : " + hangman.getGuessesMade());
             System.out.println("current word : " + hangman.getPattern());
             char guess = getLetter(keyboard, hangman);
-            TreeMap<String, Integer> results = hangman.makeGuess(guess);
+            hangman.makeGuess(guess);
             if (DEBUG) {
+                TreeMap<String, Integer> results = hangman.describeLastGuess();
             	hardDetails(hangman, results);
                 showPatterns(results);
             }
@@ -1,28 +1,55 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
-
-/**
- * Manages the details of EvilHangman. This class keeps
- * tracks of the possible words from a dictionary during
- * rounds of hangman, based on guesses so far.
- *
- * Based on a program by Stuart Reges, implemented by Abraham Martinez.
- */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Manages the details of EvilHangman. This class keeps
+ * tracks of the possible words from a dictionary during
+ * rounds of hangman, based on guesses so far.
+ * <br>
+ * A manager holds the state of the current round and is not thread safe.
+ * The words themselves are kept in a HangmanDictionary, which is read only,
+ * so any number of managers on any number of threads can share one.
+ * <br>
+ * While Flight Recorder is recording with the HangmanEvents enabled, every
+ * round, guess and secret word is recorded as one of them.
+ *
+ * Based on a program by Stuart Reges, implemented by Abraham Martinez.
+ */
 public class HangmanManager {
   private int lenLimit;
   private int guesses;
-  private Set<String> activeList;
-  private Iterator<String> itr;
+  private int[] activeList; // ids of words of length lenLimit, live in [from, to), ascending
+  private int from;
+  private int to;
+  private final LongIntMap familySizes = new LongIntMap(); // reused by makeGuess
   private HangmanDifficulty diff;
-  private ArrayList<Character> letters;
-  private StringBuilder currentPattern;
-  private Set<String> original;
+  private int guessedLetters; // bit i set once 'a' + i is guessed
+  private String otherGuesses; // guesses outside a - z, sorted, rarely any
+  private int numGuessed;
+  private String guessesMade; // cached for getGuessesMade, null after a guess
+  private char[] currentPattern;
+  private String patternString; // cached for getPattern, null after a reveal
+  private int unknown; // the number of '-' in currentPattern
+  private long[] mask; // positions of a guess the tables don't cover, one word at a time
+  private final HangmanDictionary dictionary;
+  private ExpertAdversary expert; // made for the first EXPERT round
+  private PartitionCache partitionCache; // null unless one is set
+  private OpeningBook openingBook; // null unless one is set
+  private int bookLetter; // the first guess, if it kept the book's family, else -1
+  private RandomGenerator random = new SplittableRandom(); // picks the secret word
+  private GuessMetrics metrics; // null unless one is set
+  // The families of the last guess, kept for describeLastGuess.
+  private char lastGuess;
+  private long[] lastFamilies; // positions of the guess, null for wide words
+  private BitSet[] lastWideFamilies;
+  private int[] lastSizes; // null before the first guess of a round
 
   /**
    * Create a new HangmanManager from the provided set of words and phrases.
@@ -36,8 +63,22 @@ public class HangmanManager {
       throw new IllegalArgumentException("Sorry, the dictionary appears to be empty."
           + "Please use a valid dictionary.");
     }
-    this.original = words; // Copy for hard reset
+    this.dictionary = HangmanDictionary.of(words); // Indexed once, reused every round
+  }
 
+  /**
+   * Create a new HangmanManager that plays from an already indexed dictionary.
+   * pre: dictionary != null, dictionary.size() > 0
+   *
+   * @param dictionary The indexed words for this instance of Hangman.
+   * @param debugOn    true if we should print out debugging to System.out.
+   */
+  public HangmanManager(HangmanDictionary dictionary, boolean debugOn) {
+    if (dictionary == null || dictionary.size() == 0) {
+      throw new IllegalArgumentException("Sorry, the dictionary appears to be empty."
+          + "Please use a valid dictionary.");
+    }
+    this.dictionary = dictionary;
   }
 
   /**
@@ -52,7 +93,104 @@ public class HangmanManager {
       throw new IllegalArgumentException("Sorry, the dictionary appears to be empty."
           + "Please use a valid dictionary.");
     }
-    this.original = words;
+    this.dictionary = HangmanDictionary.of(words);
+  }
+
+  /**
+   * Create a new HangmanManager that plays straight from a dictionary file
+   * written by DictionaryCompiler. The file is mapped, not parsed, so this
+   * is nearly instant and processes mapping the same file share it.
+   * pre: file != null, the file holds at least one word
+   *
+   * @param file    The compiled dictionary.
+   * @param debugOn true if we should print out debugging to System.out.
+   * @return a HangmanManager for the words in the file.
+   * @throws IOException if the file can't be read or is not a compiled dictionary.
+   */
+  public static HangmanManager mapped(Path file, boolean debugOn) throws IOException {
+    return new HangmanManager(HangmanDictionary.map(file), debugOn);
+  }
+
+  /**
+   * Share a cache of the families guesses split words into with other
+   * managers. Once a state has been split by a guess, every manager using
+   * the cache gets the chosen family of the same guess from it, without
+   * looking at the other words.
+   * pre: cache == null or cache.getDictionary() is this manager's dictionary
+   *
+   * @param cache The cache to use, or null to stop using one.
+   */
+  public void setPartitionCache(PartitionCache cache) {
+    if (cache != null && cache.getDictionary() != dictionary) {
+      throw new IllegalArgumentException("The cache is for another dictionary.");
+    }
+    partitionCache = cache;
+  }
+
+  /**
+   * Use the given generator to pick the secret word from the words left.
+   * A manager that is given a generator seeded the same way, and the same
+   * guesses, picks the same words every time. Managers start with their
+   * own unseeded generator, so they never share one.
+   * pre: random != null, random is used by this manager only
+   *
+   * @param random The generator for this manager's random choices.
+   */
+  public void setRandom(RandomGenerator random) {
+    if (random == null) {
+      throw new IllegalArgumentException("Violation of precondition in setRandom.");
+    }
+    this.random = random;
+  }
+
+  /**
+   * Report the time, families, words and allocations of every guess to the
+   * given sink. Without a sink guesses measure nothing.
+   *
+   * @param metrics The sink to report to, or null to stop reporting.
+   */
+  public void setGuessMetrics(GuessMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /*
+   * Counts the bytes the current thread has allocated. A holder, so the
+   * management beans are only started once a manager with metrics guesses.
+   */
+  private static final class Allocations {
+    // null if the JVM can't tell.
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private static com.sun.management.ThreadMXBean threads() {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threads.isThreadAllocatedMemorySupported()
+            && threads.isThreadAllocatedMemoryEnabled()) {
+          return threads;
+        }
+      }
+      return null;
+    }
+
+    // The bytes the current thread has allocated so far, -1 if unknown.
+    static long current() {
+      return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+  }
+
+  /**
+   * Answer the first guesses of every round from an opening book, so they
+   * only have to gather the family they keep.
+   * pre: book == null or book.getDictionary() is this manager's dictionary
+   *
+   * @param book The book to use, or null to stop using one.
+   */
+  public void setOpeningBook(OpeningBook book) {
+    if (book != null && book.getDictionary() != dictionary) {
+      throw new IllegalArgumentException("The book is for another dictionary.");
+    }
+    openingBook = book;
   }
 
   /**
@@ -65,14 +203,7 @@ public class HangmanManager {
    *         with the given length
    */
   public int numWords(int length) {
-    int numWords = 0;
-    itr = original.iterator();
-    while (itr.hasNext()) {
-      if (itr.next().length() == length) {
-        numWords++;
-      }
-    }
-    return numWords;
+    return dictionary.numWords(length);
   }
 
   /**
@@ -86,12 +217,32 @@ public class HangmanManager {
    * @param diff       The difficulty for this round.
    */
   public void prepForRound(int wordLen, int numGuesses, HangmanDifficulty diff) {
-    letters = new ArrayList<>();
+    HangmanEvents.Round event = new HangmanEvents.Round();
+    event.begin();
+    guessedLetters = 0;
+    otherGuesses = "";
+    numGuessed = 0;
+    guessesMade = null;
     lenLimit = wordLen;
     guesses = numGuesses;
     this.diff = diff;
-    activeList = original;
-    currentPattern = new StringBuilder(lenLimit).append(defaultFamily());
+    from = 0;
+    to = dictionary.numWords(wordLen);
+    activeList = new int[to];
+    mask = new long[Math.max(1, (wordLen + 63) / 64)];
+    for (int id = 0; id < to; id++) {
+      activeList[id] = id;
+    }
+    defaultFamily();
+    lastSizes = null;
+    bookLetter = -1;
+    if (event.shouldCommit()) {
+      event.wordLength = wordLen;
+      event.guesses = numGuesses;
+      event.difficulty = String.valueOf(diff);
+      event.words = to;
+      event.commit();
+    }
   }
 
   /**
@@ -102,7 +253,7 @@ public class HangmanManager {
    *         original dictionary and the guesses so far.
    */
   public int numWordsCurrent() {
-    return activeList.size();
+    return to - from;
   }
 
   /**
@@ -127,18 +278,50 @@ public class HangmanManager {
    *         has guessed so far during this round.
    */
   public String getGuessesMade() {
-    Collections.sort(letters);
-    String guessesMade = "[";
-    for (char letter : letters) {
-      guessesMade += Character.toString(letter);
-      if (!(letters.indexOf(letter) == letters.size() - 1)) {
-        guessesMade += ", ";
-      }
+    if (guessesMade == null) {
+      guessesMade = renderGuessesMade();
     }
-    guessesMade += "]";
     return guessesMade;
   }
 
+  // Lists the guesses in order: the other guesses before 'a', then the
+  // letters in the set, then the other guesses after 'z'.
+  private String renderGuessesMade() {
+    char[] buffer = new char[Math.max(2, 3 * numGuessed)];
+    int length = 0;
+    buffer[length++] = '[';
+    int other = 0;
+    while (other < otherGuesses.length() && otherGuesses.charAt(other) < 'a') {
+      length = appendGuess(buffer, length, otherGuesses.charAt(other++));
+    }
+    for (int rest = guessedLetters; rest != 0; rest &= rest - 1) {
+      length = appendGuess(buffer, length, (char) ('a' + Integer.numberOfTrailingZeros(rest)));
+    }
+    while (other < otherGuesses.length()) {
+      length = appendGuess(buffer, length, otherGuesses.charAt(other++));
+    }
+    buffer[length++] = ']';
+    return new String(buffer, 0, length);
+  }
+
+  private static int appendGuess(char[] buffer, int length, char guess) {
+    if (length > 1) {
+      buffer[length++] = ',';
+      buffer[length++] = ' ';
+    }
+    buffer[length++] = guess;
+    return length;
+  }
+
+  /**
+   * Get the letters a - z guessed so far this round as a set of bits.
+   *
+   * @return a mask with bit i set if the letter 'a' + i has been guessed.
+   */
+  public int getGuessedLetters() {
+    return guessedLetters;
+  }
+
   /**
    * Check the status of a character.
    * 
@@ -147,7 +330,27 @@ public class HangmanManager {
    *         false otherwise.
    */
   public boolean alreadyGuessed(char guess) {
-    return letters.contains(guess);
+    int letter = HangmanDictionary.letterIndex(guess);
+    if (letter >= 0) {
+      return (guessedLetters & (1 << letter)) != 0;
+    }
+    return otherGuesses.indexOf(guess) >= 0;
+  }
+
+  // Record guess in the set of guesses made this round.
+  private void addGuess(char guess) {
+    int letter = HangmanDictionary.letterIndex(guess);
+    if (letter >= 0) {
+      guessedLetters |= 1 << letter;
+    } else {
+      int at = 0;
+      while (at < otherGuesses.length() && otherGuesses.charAt(at) < guess) {
+        at++;
+      }
+      otherGuesses = otherGuesses.substring(0, at) + guess + otherGuesses.substring(at);
+    }
+    numGuessed++;
+    guessesMade = null;
   }
 
   /**
@@ -158,134 +361,423 @@ public class HangmanManager {
    * @return the current pattern.
    */
   public String getPattern() {
-    return this.currentPattern.toString();
+    if (patternString == null) {
+      patternString = new String(currentPattern);
+    }
+    return patternString;
+  }
+
+  /**
+   * Check if every letter of the pattern has been revealed.
+   *
+   * @return true if the pattern has no '-' left, false otherwise.
+   */
+  public boolean isSolved() {
+    return unknown == 0;
   }
 
   /**
    * Update the game status (pattern, wrong guesses, word list),
    * based on the give guess.
+   * The families the guess split the words into are available from
+   * describeLastGuess, for testing and debugging.
    * 
    * @param guess pre: !alreadyGuessed(ch), the current guessed character
+   */
+  public void makeGuess(char guess) {
+    guess(guess);
+  }
+
+  /**
+   * Describe the families the last guess of this round split the words
+   * into. Built when called, so a guess costs nothing extra when nobody
+   * looks at its families.
+   * pre: a guess has been made this round
+   *
    * @return return a tree map with the resulting patterns and the number of
    *         words in each of the new patterns.
    *         The return value is for testing and debugging purposes.
    */
-  public TreeMap<String, Integer> makeGuess(char guess) {
-    letters.add(guess);
-    Map<StringBuilder, ArrayList<String>> families = new TreeMap<>(); // used internally
-    itr = activeList.iterator();
-    while (itr.hasNext()) {
-      String word = itr.next();
-      if (word.length() == lenLimit) {
-        StringBuilder current = new StringBuilder(this.currentPattern);
-        if (word.contains(Character.toString(guess))) {
-          for (int i = 0; i < word.length(); i++) {
-            if (word.charAt(i) == guess) {
-              current.setCharAt(i, guess);
-            }
-          }
+  public TreeMap<String, Integer> describeLastGuess() {
+    if (lastSizes == null) {
+      throw new IllegalStateException("No guess has been made this round.");
+    }
+    // Hide the last guess again to get the pattern the families grew from.
+    char[] before = currentPattern.clone();
+    for (int i = 0; i < before.length; i++) {
+      if (before[i] == lastGuess) {
+        before[i] = '-';
+      }
+    }
+    TreeMap<String, Integer> families = new TreeMap<>();
+    for (int i = 0; i < lastSizes.length; i++) {
+      char[] pattern = before.clone();
+      if (lastFamilies != null) {
+        for (long rest = lastFamilies[i]; rest != 0; rest &= rest - 1) {
+          pattern[Long.numberOfTrailingZeros(rest)] = lastGuess;
         }
-        if (!families.containsKey(current)) {
-          families.put(current, new ArrayList<String>());
+      } else {
+        for (int at = lastWideFamilies[i].nextSetBit(0); at >= 0;
+            at = lastWideFamilies[i].nextSetBit(at + 1)) {
+          pattern[at] = lastGuess;
         }
-        ArrayList<String> wordsInFamily = families.get(current);
-        wordsInFamily.add(word);
       }
+      families.put(new String(pattern), lastSizes[i]);
     }
-    TreeMap<String, Integer> debugFamilies = activePattern(families);
-    if (!getPattern().contains(Character.toString(guess))) {
+    return families;
+  }
+
+  /**
+   * Apply a sequence of guesses in order, as if makeGuess were called with
+   * each one. Stops early
+   * if the round ends, when there are no wrong guesses left or the pattern
+   * has no '-' left.
+   * <br>
+   * This is a convenience for callers that have a whole sequence: each guess
+   * still costs what makeGuess does, since the family it keeps depends on
+   * the sizes of every family it splits the words into.
+   * pre: sequence != null, no letter in sequence has been guessed this
+   *      round or repeats
+   *
+   * @param sequence The letters to guess, in order.
+   * @return the state of the round after the guesses, with the size of the
+   *         family chosen for each guess that was applied.
+   */
+  public GuessSequence makeGuesses(char[] sequence) {
+    if (sequence == null) {
+      throw new IllegalArgumentException("Violation of precondition in makeGuesses.");
+    }
+    for (int i = 0; i < sequence.length; i++) {
+      if (alreadyGuessed(sequence[i])) {
+        throw new IllegalArgumentException(sequence[i] + " has already been guessed.");
+      }
+      for (int j = 0; j < i; j++) {
+        if (sequence[j] == sequence[i]) {
+          throw new IllegalArgumentException(sequence[i] + " is in the sequence twice.");
+        }
+      }
+    }
+    int[] familySizes = new int[sequence.length];
+    int applied = 0;
+    while (applied < sequence.length && guesses > 0 && !isSolved()) {
+      familySizes[applied] = guess(sequence[applied]);
+      applied++;
+    }
+    return new GuessSequence(getPattern(), guesses, Arrays.copyOf(familySizes, applied));
+  }
+
+  /*
+   * Apply one guess: split the live words into families, keep the chosen
+   * one and update the pattern and wrong guesses. Returns the number of
+   * words in the chosen family.
+   */
+  private int guess(char guess) {
+    HangmanEvents.Guess event = new HangmanEvents.Guess();
+    if (metrics == null && !event.isEnabled()) {
+      return split(guess);
+    }
+    int wordsBefore = numWordsCurrent();
+    int guessesBefore = guesses;
+    long allocatedBefore = metrics == null ? -1 : Allocations.current();
+    event.begin();
+    long start = System.nanoTime();
+    int kept = split(guess);
+    long nanos = System.nanoTime() - start;
+    event.end();
+    if (metrics != null) {
+      long allocated = allocatedBefore < 0 ? -1 : Allocations.current() - allocatedBefore;
+      metrics.guessMade(lenLimit, diff, wordsBefore, kept, lastSizes.length, nanos, allocated);
+    }
+    if (event.shouldCommit()) {
+      event.wordLength = lenLimit;
+      event.difficulty = String.valueOf(diff);
+      event.guess = guess;
+      event.wordsBefore = wordsBefore;
+      event.wordsAfter = kept;
+      event.families = lastSizes.length;
+      event.hit = guesses == guessesBefore;
+      event.commit();
+    }
+    return kept;
+  }
+
+  // guess, without measuring it.
+  private int split(char guess) {
+    addGuess(guess);
+    lastGuess = guess;
+    if (lenLimit > Long.SIZE) {
+      return makeWideGuess(guess);
+    }
+    // A family is identified by the positions the guess occupies in its words.
+    // First count the words in each family. A family reveals as many letters
+    // as its key has bits, so only the sizes need to be tallied.
+    int letter = HangmanDictionary.letterIndex(guess);
+    OpeningBook.Opening opening = null;
+    if (openingBook != null && letter >= 0 && otherGuesses.isEmpty()) {
+      if (numGuessed == 1) {
+        opening = openingBook.first(lenLimit, letter);
+      } else if (numGuessed == 2 && bookLetter >= 0) {
+        opening = openingBook.second(lenLimit, bookLetter, letter);
+      }
+    }
+    PartitionCache.Key key = null;
+    PartitionCache.Partition partition = null;
+    if (opening == null && partitionCache != null && letter >= 0 && otherGuesses.isEmpty()) {
+      key = new PartitionCache.Key(lenLimit, guessedLetters & ~(1 << letter), getPattern(),
+          letter);
+      partition = partitionCache.get(key);
+    }
+    long[] order;
+    int[] sizes;
+    if (opening != null) {
+      order = opening.families;
+      sizes = opening.sizes;
+    } else if (partition != null) {
+      order = partition.families;
+      sizes = partition.sizes;
+    } else {
+      familySizes.clear();
+      for (int i = from; i < to; i++) {
+        familySizes.add(positions(activeList[i], letter, guess), 1);
+      }
+      order = familySizes.keys();
+      for (int i = 0; i < order.length; i++) {
+        order[i] = patternOrder(order[i]);
+      }
+      Arrays.sort(order);
+      sizes = new int[order.length];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = positionsOf(order[i]);
+        sizes[i] = familySizes.get(order[i]);
+      }
+      if (key != null) {
+        partition = group(order, sizes, letter);
+        partitionCache.put(key, partition);
+      }
+    }
+    int chosenFamily;
+    if (diff == HangmanDifficulty.EXPERT && letter >= 0) {
+      if (expert == null) {
+        expert = new ExpertAdversary(dictionary);
+      }
+      chosenFamily = expert.choose(lenLimit, activeList, from, to, letter, order, sizes,
+          guesses);
+      if (chosenFamily < 0) {
+        chosenFamily = activePattern(sizes); // too many words to search, play it as HARD
+      }
+    } else {
+      chosenFamily = activePattern(sizes);
+    }
+    long chosen = order[chosenFamily];
+    // The book's second guesses follow the family it keeps on the first.
+    bookLetter = opening != null && numGuessed == 1 && chosenFamily == opening.chosen
+        ? letter : -1;
+    lastFamilies = order;
+    lastSizes = sizes;
+    reveal(chosen, guess);
+    if (partition != null) {
+      // The chosen family is already gathered in the partition.
+      System.arraycopy(partition.ids, partition.starts[chosenFamily], activeList, from,
+          sizes[chosenFamily]);
+      to = from + sizes[chosenFamily];
+    } else {
+      // Then gather only the chosen family at the front of the live words,
+      // keeping their order.
+      int kept = from;
+      for (int i = from; i < to; i++) {
+        if (positions(activeList[i], letter, guess) == chosen) {
+          activeList[kept++] = activeList[i];
+        }
+      }
+      to = kept;
+    }
+    if (chosen == 0) {
       guesses--;
     }
-    return debugFamilies;
+    return sizes[chosenFamily];
+  }
+
+  // Gather the live words a family at a time, for the partition cache.
+  // order and sizes describe the families of letter.
+  private PartitionCache.Partition group(long[] order, int[] sizes, int letter) {
+    int[] starts = new int[order.length];
+    for (int i = 1; i < order.length; i++) {
+      starts[i] = starts[i - 1] + sizes[i - 1];
+    }
+    familySizes.clear(); // now from family to its index
+    for (int i = 0; i < order.length; i++) {
+      familySizes.put(order[i], i);
+    }
+    int[] ids = new int[to - from];
+    int[] next = starts.clone();
+    for (int i = from; i < to; i++) {
+      int family = familySizes.get(dictionary.positions(lenLimit, letter, activeList[i]));
+      ids[next[family]++] = activeList[i];
+    }
+    return new PartitionCache.Partition(order, sizes, ids, starts);
+  }
+
+  // guess for words too long to keep their positions in a long.
+  private int makeWideGuess(char guess) {
+    // Sort the masks of the words into pattern order, so each family is a
+    // run of equal masks, in the order describeLastGuess lists them.
+    long[][] masks = new long[to - from][];
+    for (int i = from; i < to; i++) {
+      dictionary.positions(lenLimit, guess, activeList[i], mask);
+      masks[i - from] = mask.clone();
+    }
+    Arrays.sort(masks, HangmanManager::comparePatterns);
+    int numFamilies = 0;
+    int[] runs = new int[masks.length]; // where each family starts in masks
+    for (int i = 0; i < masks.length; i++) {
+      if (i == 0 || !Arrays.equals(masks[i], masks[i - 1])) {
+        runs[numFamilies++] = i;
+      }
+    }
+    BitSet[] order = new BitSet[numFamilies];
+    int[] sizes = new int[numFamilies];
+    for (int i = 0; i < numFamilies; i++) {
+      order[i] = BitSet.valueOf(masks[runs[i]]);
+      sizes[i] = (i + 1 < numFamilies ? runs[i + 1] : masks.length) - runs[i];
+    }
+    int chosenFamily = activePattern(sizes);
+    BitSet chosen = order[chosenFamily];
+    lastFamilies = null;
+    lastWideFamilies = order;
+    lastSizes = sizes;
+    reveal(chosen, guess);
+    long[] chosenMask = masks[runs[chosenFamily]];
+    int kept = from;
+    for (int i = from; i < to; i++) {
+      dictionary.positions(lenLimit, guess, activeList[i], mask);
+      if (Arrays.equals(mask, chosenMask)) {
+        activeList[kept++] = activeList[i];
+      }
+    }
+    to = kept;
+    if (chosen.isEmpty()) {
+      guesses--;
+    }
+    return sizes[chosenFamily];
   }
 
   /*
-   * Serves two primary functions:
-   * 1.) Return Debugger's version of families TreeMap.
-   * 2.) Determine Active List.
+   * Determine the family that becomes the active list.
+   * sizes holds the number of words in each family, with the families
+   * in ascending pattern order. Returns the index of the chosen family.
    */
-  private TreeMap<String, Integer> activePattern(Map<StringBuilder, ArrayList<String>> families) {
-    TreeMap<String, Integer> debugFamilies = new TreeMap<>();
-    TreeMap<Integer, StringBuilder> orders = new TreeMap<>();
+  private int activePattern(int[] sizes) {
     int greatestSize = 0;
+    int chosen = 0;
     boolean passed = false;
-    for (StringBuilder family : families.keySet()) {
-      int size = families.get(family).size(); // debug
-      debugFamilies.put(family.toString(), size); // debug
-      orders.put(size, family);
-      if (size > greatestSize) {
-        greatestSize = size;
-        currentPattern = family;
-        activeList = new TreeSet<String>(families.get(family));
-      } else if (size == greatestSize) {
-        boolean leastCharacters = characters(family);
-        currentPattern = leastCharacters ? family : compare(family);
-        currentPattern = diffAdjust(family, this.currentPattern);
-        activeList = new TreeSet<String>(families.get(this.currentPattern));
+    for (int i = 0; i < sizes.length; i++) {
+      if (sizes[i] > greatestSize) {
+        greatestSize = sizes[i];
+        chosen = i;
+      } else if (sizes[i] == greatestSize) {
+        // The earlier family has the smaller pattern, so it wins the
+        // ASCII tiebreak unless the difficulty steps down to this one.
+        chosen = diffAdjust(i, chosen);
         passed = true;
       }
     }
     if (!passed) {
-      StringBuilder hardest = new StringBuilder(orders.get(orders.lastKey()));
-      if (orders.size() != 1) {
-        orders.remove(orders.lastKey());
+      // The largest family is unique, so step down to the last family
+      // of the next largest size if the difficulty calls for it.
+      int secondSize = 0;
+      int secondHardest = chosen;
+      for (int i = 0; i < sizes.length; i++) {
+        if (sizes[i] < greatestSize && sizes[i] >= secondSize) {
+          secondSize = sizes[i];
+          secondHardest = i;
+        }
       }
-      StringBuilder secondHardest = new StringBuilder(orders.get(orders.lastKey()));
-      currentPattern = diffAdjust(secondHardest, hardest);
-      activeList = new TreeSet<String>(families.get(this.currentPattern));
+      chosen = diffAdjust(secondHardest, chosen);
     }
-    return debugFamilies;
+    return chosen;
   }
 
-  private StringBuilder diffAdjust(StringBuilder secondHardest, StringBuilder hardest) {
-    if (diff.equals(HangmanDifficulty.MEDIUM) && letters.size() % 4 == 0) {
+  private int diffAdjust(int secondHardest, int hardest) {
+    if (diff.equals(HangmanDifficulty.MEDIUM) && numGuessed % 4 == 0) {
       return secondHardest;
-    } else if (diff.equals(HangmanDifficulty.EASY) && letters.size() % 2 == 0) {
+    } else if (diff.equals(HangmanDifficulty.EASY) && numGuessed % 2 == 0) {
       return secondHardest;
     }
     return hardest;
   }
 
-  // Collects the number of characters revealed in a pattern.
-  private boolean characters(StringBuilder family) {
-    int possible = 0;
-    for (int i = 0; i < family.length(); i++) {
-      if (family.charAt(i) != '-') {
-        possible++;
-      }
+  // The positions of guess in the word with the given id as a bit mask,
+  // bit i for position i. letter is the letterIndex of guess.
+  private long positions(int id, int letter, char guess) {
+    if (letter >= 0) {
+      return dictionary.positions(lenLimit, letter, id);
     }
-    int contested = 0;
-    for (int i = 0; i < this.currentPattern.length(); i++) {
-      if (family.charAt(i) != '-') {
-        contested++;
+    dictionary.positions(lenLimit, guess, id, mask);
+    return mask[0];
+  }
+
+  // Maps a position mask to a key whose signed order is the order of the
+  // patterns. A '-' sorts before any letter, so the pattern with the guess
+  // at the first position where two masks differ is larger. Reversing puts
+  // position 0 in the sign bit and flipping the sign bit turns the unsigned
+  // order into a signed one.
+  static long patternOrder(long positions) {
+    return Long.reverse(positions) ^ Long.MIN_VALUE;
+  }
+
+  // The inverse of patternOrder.
+  static long positionsOf(long patternOrder) {
+    return Long.reverse(patternOrder ^ Long.MIN_VALUE);
+  }
+
+  // Compares two masks of the same length in the order of their patterns,
+  // like patternOrder: the one with the guess at the first position where
+  // they differ is larger.
+  private static int comparePatterns(long[] first, long[] second) {
+    for (int i = 0; i < first.length; i++) {
+      long differ = first[i] ^ second[i];
+      if (differ != 0) {
+        return (first[i] & Long.lowestOneBit(differ)) != 0 ? 1 : -1;
       }
     }
-    return (possible < contested);
+    return 0;
   }
 
-  // Second tiebreaker deals with ASCII comparison
-  private StringBuilder compare(StringBuilder possible) {
-    if (possible.compareTo(this.currentPattern) < 0) {
-      return possible;
+  // Reveal guess in the current pattern at the given positions.
+  private void reveal(long positions, char guess) {
+    if (positions != 0) {
+      for (long rest = positions; rest != 0; rest &= rest - 1) {
+        currentPattern[Long.numberOfTrailingZeros(rest)] = guess;
+      }
+      unknown -= Long.bitCount(positions);
+      patternString = null;
     }
-    return this.currentPattern;
   }
 
-  // Creates the initial family pattern. For instance, if lenLimit 4, then returns
-  // "----".
-  private StringBuilder defaultFamily() {
-    StringBuilder current = new StringBuilder(lenLimit);
-    for (int i = 0; i < lenLimit; i++) {
-      current.append('-');
+  private void reveal(BitSet positions, char guess) {
+    if (!positions.isEmpty()) {
+      for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+        currentPattern[i] = guess;
+      }
+      unknown -= positions.cardinality();
+      patternString = null;
     }
-    this.currentPattern = current;
-    return current;
+  }
+
+  // Creates the initial family pattern. For instance, if lenLimit 4, then
+  // the pattern is "----".
+  private void defaultFamily() {
+    currentPattern = new char[lenLimit];
+    Arrays.fill(currentPattern, '-');
+    unknown = lenLimit;
+    patternString = null;
   }
 
   /**
    * Return the secret word this HangmanManager finally ended up
    * picking for this round.
-   * If there are multiple possible words left one is selected at random.
+   * If there are multiple possible words left one is selected at random,
+   * with the generator given to setRandom.
    * <br>
    * pre: numWordsCurrent() > 0
    * 
@@ -295,14 +787,70 @@ public class HangmanManager {
     if (numWordsCurrent() <= 0) {
       throw new IllegalStateException("Oops. A fatal error has occured :(");
     }
-    ArrayList<String> last = new ArrayList<>(activeList);
-    String result;
-    if (activeList.size() > 1) {
-      int r = new Random().nextInt(last.size());
-      result = last.get(r);
+    HangmanEvents.SecretWord event = new HangmanEvents.SecretWord();
+    event.begin();
+    int id;
+    if (numWordsCurrent() > 1) {
+      id = activeList[from + random.nextInt(numWordsCurrent())];
     } else {
-      result = last.get(0);
+      id = activeList[from];
+    }
+    String word = dictionary.word(lenLimit, id);
+    if (event.shouldCommit()) {
+      event.wordLength = lenLimit;
+      event.words = numWordsCurrent();
+      event.commit();
+    }
+    return word;
+  }
+
+  /**
+   * The state of a round after a sequence of guesses, from makeGuesses.
+   */
+  public static class GuessSequence {
+    private final String pattern;
+    private final int guessesLeft;
+    private final int[] familySizes;
+
+    private GuessSequence(String pattern, int guessesLeft, int[] familySizes) {
+      this.pattern = pattern;
+      this.guessesLeft = guessesLeft;
+      this.familySizes = familySizes;
+    }
+
+    /**
+     * @return the pattern after the guesses.
+     */
+    public String getPattern() {
+      return pattern;
     }
-    return result;
-  }
+
+    /**
+     * @return the number of wrong guesses left after the guesses.
+     */
+    public int getGuessesLeft() {
+      return guessesLeft;
+    }
+
+    /**
+     * @return the number of guesses applied before the round ended.
+     */
+    public int getGuessesApplied() {
+      return familySizes.length;
+    }
+
+    /**
+     * Get the number of words left after each guess.
+     *
+     * @return the size of the family chosen for each guess applied, in order.
+     */
+    public int[] getFamilySizes() {
+      return familySizes.clone();
+    }
+
+    @Override
+    public String toString() {
+      return pattern + " " + guessesLeft + " " + Arrays.toString(familySizes);
+    }
+  }
 }
@@ -0,0 +1,430 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+
+/**
+ * Serves Evil Hangman over TCP with HangmanProtocol, on the loopback
+ * interface only, without a thread per connection.
+ * <br>
+ * One selector thread does all of the network I/O. It reads each
+ * connection's requests into a small buffer of its own, splits them into
+ * lines, and hands each line to a small pool of worker threads, which run
+ * it against the connection's GameSession exactly as HangmanTcpServer does.
+ * Replies are written from a pool of direct buffers. A connection's
+ * requests are handled one at a time and in order. Once a connection has
+ * MAX_PENDING requests and replies waiting, because it sends without
+ * reading the replies, its further lines stay unparsed in its buffer and
+ * it is not read until replies are written, so memory stays bounded however
+ * fast the players send.
+ */
+public class HangmanNioServer implements AutoCloseable {
+  /** The longest request line accepted, in bytes. */
+  public static final int MAX_LINE = HangmanProtocol.MAX_LINE;
+  /**
+   * The most requests a connection may have queued, running or waiting for
+   * their replies to be written. Lines past it are not parsed until a reply
+   * is written.
+   */
+  public static final int MAX_PENDING = 16;
+
+  private static final int INPUT_BUFFER_SIZE = 8 * MAX_LINE;
+  private static final int REPLY_BUFFER_SIZE = 512;
+  private static final int MAX_POOLED_BUFFERS = 4096;
+
+  private final HangmanDictionary dictionary;
+  private final Selector selector;
+  private final ServerSocketChannel listener;
+  private final ExecutorService workers;
+  private final ConcurrentLinkedQueue<ByteBuffer> replyBuffers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooledBuffers = new AtomicInteger();
+  // Connections with new replies, or room for more requests, to look at.
+  private final ConcurrentLinkedQueue<Connection> changed = new ConcurrentLinkedQueue<>();
+  private final AtomicLong nextId = new AtomicLong();
+  private final AtomicInteger pendingRequests = new AtomicInteger();
+  private volatile GuessMetrics guessMetrics; // for new sessions, null for none
+  private volatile Long seed; // for new sessions, null for unseeded
+  private Thread selectorThread;
+
+  /**
+   * Create a server for the given dictionary, listening on the loopback
+   * interface. Call start to begin accepting connections.
+   * pre: dictionary != null, dictionary.size() > 0, 0 <= port <= 65535, workers >= 1
+   *
+   * @param dictionary The words every session plays with.
+   * @param port       The port to listen on, 0 for any free port.
+   * @param workers    The number of threads that run requests.
+   * @throws IOException if the port can't be bound.
+   */
+  public HangmanNioServer(HangmanDictionary dictionary, int port, int workers)
+      throws IOException {
+    if (dictionary == null || dictionary.size() == 0 || workers < 1) {
+      throw new IllegalArgumentException("Violation of precondition in HangmanNioServer.");
+    }
+    this.dictionary = dictionary;
+    this.workers = Executors.newFixedThreadPool(workers);
+    selector = Selector.open();
+    listener = ServerSocketChannel.open();
+    listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    listener.configureBlocking(false);
+    listener.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  /**
+   * Get the port this server listens on.
+   *
+   * @return the local port of this server.
+   */
+  public int getPort() {
+    return listener.socket().getLocalPort();
+  }
+
+  /**
+   * Report every guess of the connections accepted from now on to a
+   * metrics sink.
+   *
+   * @param metrics The sink to report to, or null to stop reporting.
+   */
+  public void setGuessMetrics(GuessMetrics metrics) {
+    guessMetrics = metrics;
+  }
+
+  /**
+   * Seed the secret word generators of the connections accepted from now
+   * on. Each connection's generator is seeded from seed and its session id,
+   * the number of connections accepted before it plus one, so a server
+   * seeded the same way that is sent the same requests plays the same games.
+   *
+   * @param seed The seed, or null for unseeded generators.
+   */
+  public void setSeed(Long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Get the number of requests every connection has queued, running or
+   * waiting for their replies to be written. At most MAX_PENDING per
+   * connection.
+   *
+   * @return the requests read and not yet answered over the network.
+   */
+  public int getPendingRequests() {
+    return pendingRequests.get();
+  }
+
+  /**
+   * Start the selector thread.
+   */
+  public synchronized void start() {
+    if (selectorThread == null) {
+      selectorThread = new Thread(this::run, "hangman-selector");
+      selectorThread.start();
+    }
+  }
+
+  private void run() {
+    try {
+      while (selector.isOpen()) {
+        selector.select();
+        for (Connection connection = changed.poll(); connection != null;
+            connection = changed.poll()) {
+          connection.updateInterest();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            if (!key.isValid()) {
+              continue;
+            }
+            if (key.isAcceptable()) {
+              accept();
+            } else {
+              Connection connection = (Connection) key.attachment();
+              if (key.isReadable()) {
+                connection.read();
+              }
+              if (key.isValid() && key.isWritable()) {
+                connection.write();
+              }
+            }
+          } catch (IOException e) {
+            // The player hung up.
+            close(key);
+          }
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      if (selector.isOpen()) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel = listener.accept();
+    if (channel != null) {
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+      key.attach(new Connection(key));
+    }
+  }
+
+  private void close(SelectionKey key) {
+    key.cancel();
+    try {
+      key.channel().close();
+    } catch (IOException e) {
+      // Nothing more to do with it.
+    }
+    Object connection = key.attachment();
+    if (connection != null) {
+      ((Connection) connection).releaseReplies();
+    }
+  }
+
+  // Take a reply buffer from the pool, or make one if the pool is empty.
+  private ByteBuffer acquire(int size) {
+    if (size > REPLY_BUFFER_SIZE) {
+      return ByteBuffer.allocate(size); // rare, too big to pool
+    }
+    ByteBuffer buffer = replyBuffers.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(REPLY_BUFFER_SIZE);
+    }
+    pooledBuffers.decrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  private void release(ByteBuffer buffer) {
+    if (buffer.isDirect() && pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+      replyBuffers.add(buffer);
+    } else if (buffer.isDirect()) {
+      pooledBuffers.decrementAndGet();
+    }
+  }
+
+  /**
+   * Stop the server and close every connection.
+   *
+   * @throws IOException if the listening socket can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    listener.close();
+    for (SelectionKey key : selector.keys()) {
+      key.channel().close();
+    }
+    selector.close();
+    workers.shutdown();
+  }
+
+  /*
+   * One player's connection. The selector thread reads and writes it and
+   * owns input; the worker threads run its requests. requests, replies,
+   * pending and the flags are guarded by the connection's lock.
+   */
+  private class Connection {
+    private final SelectionKey key;
+    private final GameSession session;
+    // Bytes read and not yet queued as requests, in write mode.
+    private final ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+    private final ArrayDeque<String> requests = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> replies = new ArrayDeque<>();
+    private int pending; // requests queued or running, and replies not yet written
+    private boolean working;
+    private boolean closing;
+
+    private Connection(SelectionKey key) {
+      this.key = key;
+      long id = nextId.incrementAndGet();
+      session = new GameSession(id, dictionary, guessMetrics, GameSession.seeded(seed, id));
+    }
+
+    // Read what has arrived and queue the complete lines there is room for.
+    private void read() throws IOException {
+      if (((SocketChannel) key.channel()).read(input) < 0) {
+        throw new IOException("The player hung up.");
+      }
+      resume();
+    }
+
+    /*
+     * Queue complete lines from input until the connection has MAX_PENDING
+     * requests and replies, keeping the rest in input for when replies are
+     * written, then read again only if there is room.
+     */
+    private void resume() throws IOException {
+      input.flip();
+      byte[] bytes = input.array();
+      int start = input.position();
+      for (int i = start; i < input.limit(); i++) {
+        if (bytes[i] == '\n') {
+          int end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+          if (!request(new String(bytes, start, end - start, StandardCharsets.US_ASCII))) {
+            break;
+          }
+          start = i + 1;
+        } else if (i - start == MAX_LINE) {
+          throw new IOException("The request is too long.");
+        }
+      }
+      input.position(start);
+      input.compact();
+      updateInterest();
+    }
+
+    // Queue a request, or return false if the connection has no room for it.
+    private synchronized boolean request(String request) {
+      if (closing) {
+        return true; // drop it
+      }
+      if (pending == MAX_PENDING) {
+        return false;
+      }
+      pending++;
+      pendingRequests.incrementAndGet();
+      requests.add(request);
+      if (!working) {
+        working = true;
+        workers.execute(this::work);
+      }
+      return true;
+    }
+
+    // On a worker: run the queued requests in order.
+    private void work() {
+      while (true) {
+        String request;
+        synchronized (this) {
+          request = closing ? null : requests.poll();
+          if (request == null) {
+            working = false;
+            return;
+          }
+        }
+        String reply = HangmanProtocol.respond(session, request);
+        byte[] bytes = (reply + "\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = acquire(bytes.length);
+        buffer.put(bytes).flip();
+        synchronized (this) {
+          if (closing) {
+            release(buffer); // the connection closed while the request ran
+            working = false;
+            return;
+          }
+          replies.add(buffer);
+          closing = reply.equals(HangmanProtocol.BYE);
+        }
+        changed.add(this);
+        selector.wakeup();
+      }
+    }
+
+    // Write as much of the replies as the socket takes.
+    private void write() throws IOException {
+      SocketChannel channel = (SocketChannel) key.channel();
+      synchronized (this) {
+        while (!replies.isEmpty()) {
+          ByteBuffer buffer = replies.peek();
+          channel.write(buffer);
+          if (buffer.hasRemaining()) {
+            return;
+          }
+          release(replies.poll());
+          pending--;
+          pendingRequests.decrementAndGet();
+        }
+        if (closing) {
+          close(key);
+          return;
+        }
+      }
+      resume();
+    }
+
+    // On the selector thread: write while there are replies, and read
+    // while there is room for more requests and for their bytes.
+    private synchronized void updateInterest() {
+      if (!key.isValid()) {
+        return;
+      }
+      int interest = 0;
+      if (!closing && pending < MAX_PENDING && input.hasRemaining()) {
+        interest |= SelectionKey.OP_READ;
+      }
+      if (!replies.isEmpty()) {
+        interest |= SelectionKey.OP_WRITE;
+      }
+      key.interestOps(interest);
+    }
+
+    private synchronized void releaseReplies() {
+      closing = true;
+      requests.clear();
+      for (ByteBuffer buffer : replies) {
+        release(buffer);
+      }
+      replies.clear();
+      pendingRequests.addAndGet(-pending);
+      pending = 0;
+    }
+  }
+
+  /**
+   * Run a server until the process is stopped.
+   * <br>
+   * Usage: java HangmanNioServer [dictionary [port [workers [seed]]]]
+   * <br>
+   * The dictionary may be a text file or one compiled by DictionaryCompiler
+   * (ending in .bin). Defaults: dictionary.txt, port 3141, one worker per core,
+   * unseeded. With a seed, see setSeed, replaying the same connections plays
+   * the same games.
+   * The cost of every guess is published over JMX, as
+   * hangman:type=GuessStats,name=HangmanNioServer.
+   *
+   * @param args the optional settings, in order.
+   * @throws IOException if the dictionary can't be read or the port bound.
+   */
+  public static void main(String[] args) throws IOException {
+    HangmanDictionary dictionary = DictionaryLoader.open(
+        Paths.get(args.length > 0 ? args[0] : "dictionary.txt"));
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 3141;
+    int workers = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    HangmanNioServer server = new HangmanNioServer(dictionary, port, workers);
+    if (args.length > 3) {
+      server.setSeed(Long.parseLong(args[3]));
+    }
+    GuessStats stats = new GuessStats();
+    try {
+      stats.register("HangmanNioServer");
+      server.setGuessMetrics(stats);
+    } catch (JMException e) {
+      System.out.println("Not publishing guess metrics: " + e.getMessage());
+    }
+    server.start();
+    System.out.println("Serving " + dictionary.size() + " words on "
+        + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort()
+        + " with " + workers + " workers");
+  }
+}
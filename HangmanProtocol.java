@@ -0,0 +1,96 @@
+/**
+ * The line protocol network players use to play a GameSession. It runs the
+ * same flow as HangmanMain: pick the game parameters, then guess letters
+ * until the round is over, with the same checks on every choice. Each
+ * request is one line and gets exactly one line back. Words are separated
+ * by spaces and commands are not case sensitive.
+ * <pre>
+ *   NEW wordLen numGuesses difficulty   start a round, difficulty 1 (easiest) to 4
+ *   GUESS letter                        guess a letter
+ *   QUIT                                end the connection
+ * </pre>
+ * Replies:
+ * <pre>
+ *   PLAY pattern guessesLeft guessed            the round goes on
+ *   WIN pattern guessesLeft guessed answer      the round is over, solved
+ *   LOSE pattern guessesLeft guessed answer     the round is over, not solved
+ *   ERR message                                 the request was refused
+ *   BYE                                         the connection is closing
+ * </pre>
+ * guessed lists the letters guessed so far in alphabetical order with
+ * nothing between them, or - if there are none.
+ * <br>
+ * A request may be at most MAX_LINE bytes long, not counting the \n that
+ * ends it. Servers close a connection that sends a longer one.
+ */
+public class HangmanProtocol {
+  /** The reply to QUIT. The connection should be closed after sending it. */
+  public static final String BYE = "BYE";
+  /** The longest request line accepted, in bytes, without the \n. */
+  public static final int MAX_LINE = 128;
+
+  private HangmanProtocol() {
+  }
+
+  /**
+   * Carry out one request on a session.
+   * pre: session != null, request != null
+   *
+   * @param session The session of the connection the request came from.
+   * @param request One line from the player, without the line terminator.
+   * @return the reply line, without a line terminator.
+   */
+  public static String respond(GameSession session, String request) {
+    String[] words = request.trim().split(" +");
+    String command = words[0].toUpperCase();
+    try {
+      if (command.equals("NEW") && words.length == 4) {
+        return reply(session.start(Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+            difficulty(Integer.parseInt(words[3]))));
+      } else if (command.equals("GUESS") && words.length == 2 && words[1].length() == 1) {
+        return reply(session.guess(words[1].charAt(0)));
+      } else if (command.equals("QUIT") && words.length == 1) {
+        return BYE;
+      }
+      return "ERR Unknown request. Use NEW wordLen numGuesses difficulty, GUESS letter or QUIT.";
+    } catch (NumberFormatException e) {
+      return "ERR Not a number: " + e.getMessage();
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return "ERR " + e.getMessage();
+    }
+  }
+
+  // Difficulties are numbered 1 to 4 for players, as in HangmanMain.
+  private static HangmanDifficulty difficulty(int choice) {
+    if (choice < HangmanDifficulty.minPossible() || choice > HangmanDifficulty.maxPossible()) {
+      throw new IllegalArgumentException("Pick a difficulty between "
+          + HangmanDifficulty.minPossible() + " and " + HangmanDifficulty.maxPossible() + ".");
+    }
+    return HangmanDifficulty.values()[choice - 1];
+  }
+
+  private static String reply(GameSession.Status status) {
+    StringBuilder reply = new StringBuilder(64);
+    if (!status.isOver()) {
+      reply.append("PLAY ");
+    } else {
+      reply.append(status.isWon() ? "WIN " : "LOSE ");
+    }
+    reply.append(status.getPattern()).append(' ').append(status.getGuessesLeft()).append(' ');
+    int before = reply.length();
+    String guessesMade = status.getGuessesMade();
+    for (int i = 0; i < guessesMade.length(); i++) {
+      char ch = guessesMade.charAt(i);
+      if (ch != '[' && ch != ']' && ch != ',' && ch != ' ') {
+        reply.append(ch);
+      }
+    }
+    if (reply.length() == before) {
+      reply.append('-');
+    }
+    if (status.isOver()) {
+      reply.append(' ').append(status.getAnswer());
+    }
+    return reply.toString();
+  }
+}
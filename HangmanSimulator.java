@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Plays whole rounds of Evil Hangman without a person or any console I/O:
+ * a HangmanGuesser picks the letters and the HangmanManager cheats as usual.
+ * Used to tune the difficulty levels and to load test the manager.
+ * <br>
+ * A simulator is not thread safe, but playParallel spreads rounds over a
+ * ForkJoinPool: every task gets its own manager and guesser, and all of
+ * them share the read only dictionary and the partition cache, if any.
+ */
+public class HangmanSimulator {
+  // Rounds per parallel task. Fixed, so a batch is split the same way,
+  // and gets the same guessers, whatever the parallelism.
+  private static final int ROUNDS_PER_TASK = 1024;
+  // The most word ids main's partition cache holds, about 32 MB.
+  private static final long CACHED_WORDS = 8_000_000L;
+
+  private final HangmanDictionary dictionary;
+  private final PartitionCache cache;
+  private final HangmanManager manager;
+
+  /**
+   * Create a simulator that plays rounds with the given dictionary.
+   * pre: dictionary != null, dictionary.size() > 0
+   *
+   * @param dictionary The words to play with.
+   */
+  public HangmanSimulator(HangmanDictionary dictionary) {
+    this(dictionary, null);
+  }
+
+  /**
+   * Create a simulator that plays rounds with the given dictionary, sharing
+   * the families guesses split words into through a cache.
+   * pre: dictionary != null, dictionary.size() > 0,
+   *      cache == null or cache.getDictionary() == dictionary
+   *
+   * @param dictionary The words to play with.
+   * @param cache      The cache every manager of this simulator uses, or null.
+   */
+  public HangmanSimulator(HangmanDictionary dictionary, PartitionCache cache) {
+    this.dictionary = dictionary;
+    this.cache = cache;
+    manager = new HangmanManager(dictionary, false);
+    manager.setPartitionCache(cache);
+  }
+
+  /**
+   * Play one round.
+   * pre: numWords(wordLen) > 0, numGuesses >= 1, diff != null, guesser != null
+   *
+   * @param wordLen    the length of the word to pick.
+   * @param numGuesses the number of wrong guesses before the guesser loses.
+   * @param diff       The difficulty for the round.
+   * @param guesser    Picks the letters to guess.
+   * @return the number of guesses made if the guesser solved the word,
+   *         or the negated number of guesses made if the guesser lost.
+   */
+  public int playRound(int wordLen, int numGuesses, HangmanDifficulty diff,
+      HangmanGuesser guesser) {
+    manager.prepForRound(wordLen, numGuesses, diff);
+    int guessesMade = 0;
+    boolean solved = false;
+    // Words with characters other than a - z are never solved,
+    // so stop once every letter has been guessed.
+    while (manager.getGuessesLeft() > 0 && guessesMade < HangmanDictionary.LETTERS
+        && !solved) {
+      manager.makeGuess(guesser.nextGuess(manager));
+      guessesMade++;
+      solved = manager.isSolved();
+    }
+    return solved ? guessesMade : -guessesMade;
+  }
+
+  /**
+   * Play a batch of rounds, all with the same settings.
+   * pre: rounds >= 0, numWords(wordLen) > 0, numGuesses >= 1, diff != null,
+   * guesser != null
+   *
+   * @param rounds     The number of rounds to play.
+   * @param wordLen    the length of the word to pick each round.
+   * @param numGuesses the number of wrong guesses before the guesser loses.
+   * @param diff       The difficulty for every round.
+   * @param guesser    Picks the letters to guess.
+   * @return the totals for the batch.
+   */
+  public Result play(int rounds, int wordLen, int numGuesses, HangmanDifficulty diff,
+      HangmanGuesser guesser) {
+    if (rounds < 0 || manager.numWords(wordLen) == 0 || numGuesses < 1 || diff == null
+        || guesser == null) {
+      throw new IllegalArgumentException("Violation of precondition in play.");
+    }
+    long start = System.nanoTime();
+    int wins = 0;
+    long guesses = 0;
+    for (int i = 0; i < rounds; i++) {
+      int result = playRound(wordLen, numGuesses, diff, guesser);
+      if (result > 0) {
+        wins++;
+      }
+      guesses += Math.abs(result);
+    }
+    return new Result(rounds, wins, guesses, System.nanoTime() - start);
+  }
+
+  /**
+   * Play a batch of rounds in parallel on pool, all with the same settings.
+   * The rounds are split into tasks of a fixed size. Task i plays with its
+   * own HangmanManager and the guesser guessers.apply(i), so nothing but
+   * the dictionary and the cache is shared and seeded guessers give the
+   * same totals on every run, at EXPERT too, since its search is bounded by
+   * work rather than time.
+   * pre: rounds >= 0, numWords(wordLen) > 0, numGuesses >= 1, diff != null,
+   * guessers != null, pool != null
+   *
+   * @param rounds     The number of rounds to play.
+   * @param wordLen    the length of the word to pick each round.
+   * @param numGuesses the number of wrong guesses before the guesser loses.
+   * @param diff       The difficulty for every round.
+   * @param guessers   Creates the guesser for each task.
+   * @param pool       The pool to play on.
+   * @return the totals for the batch, timed from start to finish.
+   */
+  public Result playParallel(int rounds, int wordLen, int numGuesses,
+      HangmanDifficulty diff, IntFunction<HangmanGuesser> guessers, ForkJoinPool pool) {
+    if (rounds < 0 || manager.numWords(wordLen) == 0 || numGuesses < 1 || diff == null
+        || guessers == null || pool == null) {
+      throw new IllegalArgumentException("Violation of precondition in playParallel.");
+    }
+    long start = System.nanoTime();
+    int tasks = (rounds + ROUNDS_PER_TASK - 1) / ROUNDS_PER_TASK;
+    Result total = pool.submit(() -> IntStream.range(0, tasks).parallel()
+        .mapToObj(task -> new HangmanSimulator(dictionary, cache).play(
+            Math.min(ROUNDS_PER_TASK, rounds - task * ROUNDS_PER_TASK),
+            wordLen, numGuesses, diff, guessers.apply(task)))
+        .reduce(new Result(0, 0, 0, 0), Result::plus)).join();
+    return new Result(total.rounds, total.wins, total.guesses, System.nanoTime() - start);
+  }
+
+  /**
+   * The totals for a batch of rounds.
+   */
+  public static class Result {
+    private final int rounds;
+    private final int wins;
+    private final long guesses;
+    private final long nanos;
+
+    /**
+     * Create the totals for a batch of rounds.
+     *
+     * @param rounds  The number of rounds played.
+     * @param wins    The number of rounds the guesser won.
+     * @param guesses The number of guesses made across every round.
+     * @param nanos   How long the batch took, in nanoseconds.
+     */
+    public Result(int rounds, int wins, long guesses, long nanos) {
+      this.rounds = rounds;
+      this.wins = wins;
+      this.guesses = guesses;
+      this.nanos = nanos;
+    }
+
+    /**
+     * @return the number of rounds played.
+     */
+    public int getRounds() {
+      return rounds;
+    }
+
+    /**
+     * @return the number of rounds the guesser won.
+     */
+    public int getWins() {
+      return wins;
+    }
+
+    /**
+     * @return the number of guesses made across every round.
+     */
+    public long getGuesses() {
+      return guesses;
+    }
+
+    /**
+     * @return how long the batch took, in nanoseconds.
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    // The totals of both batches, as if they were played one after the other.
+    private Result plus(Result other) {
+      return new Result(rounds + other.rounds, wins + other.wins,
+          guesses + other.guesses, nanos + other.nanos);
+    }
+
+    /**
+     * Get how many rounds were played per second.
+     *
+     * @return the rounds played per second of the batch.
+     */
+    public double roundsPerSecond() {
+      return nanos == 0 ? 0 : rounds * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d rounds, %d wins (%.1f%%), %.1f guesses per round, "
+          + "%.0f rounds/sec", rounds, wins, rounds == 0 ? 0 : 100.0 * wins / rounds,
+          rounds == 0 ? 0 : (double) guesses / rounds, roundsPerSecond());
+    }
+  }
+
+  /**
+   * Simulate rounds at every difficulty with each guesser and report the
+   * results, first on one thread and then in parallel on every core.
+   * EXPERT reads up to ExpertAdversary.BUDGET word positions a guess, so
+   * it plays one round for every thousand of the other difficulties.
+   * <br>
+   * Usage: java HangmanSimulator [dictionary [rounds [wordLen [numGuesses]]]]
+   * <br>
+   * The dictionary may be a text file or one compiled by DictionaryCompiler
+   * (ending in .bin). Defaults: dictionary.txt, 100000 rounds, 8 letters,
+   * 10 wrong guesses.
+   *
+   * @param args the optional settings, in order.
+   * @throws IOException if the dictionary can't be read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path file = Paths.get(args.length > 0 ? args[0] : "dictionary.txt");
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+    int wordLen = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+    int numGuesses = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+    HangmanDictionary dictionary = DictionaryLoader.open(file);
+    PartitionCache cache = new PartitionCache(dictionary, CACHED_WORDS);
+    HangmanSimulator simulator = new HangmanSimulator(dictionary, cache);
+    System.out.println("Simulating with " + dictionary.numWords(wordLen) + " words of length "
+        + wordLen + " and " + numGuesses + " wrong guesses.");
+    for (HangmanDifficulty diff : HangmanDifficulty.values()) {
+      int n = roundsAt(diff, rounds);
+      System.out.println(diff + " by frequency: "
+          + simulator.play(n, wordLen, numGuesses, diff, HangmanGuesser.byFrequency()));
+      System.out.println(diff + " random: "
+          + simulator.play(n, wordLen, numGuesses, diff, HangmanGuesser.random(n)));
+    }
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    System.out.println("In parallel on " + pool.getParallelism() + " threads:");
+    for (HangmanDifficulty diff : HangmanDifficulty.values()) {
+      int n = roundsAt(diff, rounds);
+      System.out.println(diff + " by frequency: " + simulator.playParallel(n, wordLen,
+          numGuesses, diff, task -> HangmanGuesser.byFrequency(), pool));
+      System.out.println(diff + " random: " + simulator.playParallel(n, wordLen,
+          numGuesses, diff, task -> HangmanGuesser.random(task), pool));
+    }
+    System.out.println("Partition cache: " + cache);
+  }
+
+  // The number of rounds main plays at the given difficulty.
+  private static int roundsAt(HangmanDifficulty diff, int rounds) {
+    return diff == HangmanDifficulty.EXPERT ? Math.max(1, rounds / 1000) : rounds;
+  }
+}
@@ -0,0 +1,138 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a HangmanTcpServer, or a HangmanNioServer, on this machine.
+ * Starts a server on a free
+ * loopback port, opens a number of idle connections that just stay open,
+ * then has a number of active clients each play games over their own
+ * connection, guessing letters by frequency.
+ * <br>
+ * Reports games and requests per second, request latency and the heap
+ * used while the connections were open.
+ * <br>
+ * Usage: java HangmanTcpLoadGenerator [dictionary [idle [clients [games [server]]]]]
+ * <br>
+ * The dictionary may be a text file or one compiled by DictionaryCompiler
+ * (ending in .bin). The server is tcp or nio. Defaults: dictionary.txt,
+ * 10000 idle connections, 100 clients, 100 games each, all with 8 letters,
+ * 10 wrong guesses and difficulty 3, against a tcp server.
+ */
+public class HangmanTcpLoadGenerator {
+  private static final String NEW_GAME = "NEW 8 10 3";
+
+  public static void main(String[] args) throws Exception {
+    HangmanDictionary dictionary = DictionaryLoader.open(
+        Paths.get(args.length > 0 ? args[0] : "dictionary.txt"));
+    int idle = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    int clients = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    int games = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+    boolean nio = args.length > 4 && args[4].equalsIgnoreCase("nio");
+    AutoCloseable server;
+    int port;
+    if (nio) {
+      HangmanNioServer nioServer = new HangmanNioServer(dictionary, 0,
+          Runtime.getRuntime().availableProcessors());
+      nioServer.start();
+      server = nioServer;
+      port = nioServer.getPort();
+    } else {
+      HangmanTcpServer tcpServer = new HangmanTcpServer(dictionary, 0);
+      tcpServer.start();
+      server = tcpServer;
+      port = tcpServer.getPort();
+    }
+    try (server) {
+      List<Socket> idleConnections = new ArrayList<>();
+      ExecutorService executor = GameServer.newTaskExecutor();
+      try {
+        for (int i = 0; i < idle; i++) {
+          idleConnections.add(new Socket(InetAddress.getLoopbackAddress(), port));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("%d idle connections open, %d MB of heap used%n", idle,
+            (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+          results.add(executor.submit(() -> play(port, games)));
+        }
+        List<long[]> latencies = new ArrayList<>();
+        for (Future<long[]> result : results) {
+          latencies.add(result.get());
+        }
+        long nanos = System.nanoTime() - start;
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d games, %d requests in %d ms: %.0f games/sec, %.0f requests/sec%n",
+            clients * games, all.length, TimeUnit.NANOSECONDS.toMillis(nanos),
+            clients * games * 1e9 / nanos, all.length * 1e9 / nanos);
+        System.out.printf("latency p50 %d us, p99 %d us, max %d us%n",
+            percentile(all, 0.50) / 1000, percentile(all, 0.99) / 1000,
+            percentile(all, 1.0) / 1000);
+      } finally {
+        for (Socket socket : idleConnections) {
+          socket.close();
+        }
+        executor.shutdown();
+      }
+    }
+  }
+
+  // Play games over one connection, returning how long each request took.
+  private static long[] play(int port, int games) {
+    long[] latencies = new long[games * (HangmanDictionary.LETTERS + 1)];
+    int requests = 0;
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+            socket.getInputStream(), StandardCharsets.US_ASCII));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+            socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+      socket.setTcpNoDelay(true);
+      for (int game = 0; game < games; game++) {
+        String reply = null;
+        for (int guess = -1; reply == null || reply.startsWith("PLAY"); guess++) {
+          long sent = System.nanoTime();
+          out.write(guess < 0 ? NEW_GAME : "GUESS " + HangmanGuesser.BY_FREQUENCY.charAt(guess));
+          out.write('\n');
+          out.flush();
+          reply = in.readLine();
+          latencies[requests++] = System.nanoTime() - sent;
+          if (reply == null || reply.startsWith("ERR")) {
+            throw new IllegalStateException("Unexpected reply: " + reply);
+          }
+        }
+      }
+      out.write("QUIT\n");
+      out.flush();
+      in.readLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return Arrays.copyOf(latencies, requests);
+  }
+
+  // pre: sorted is in ascending order
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
@@ -0,0 +1,162 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves Evil Hangman over TCP with HangmanProtocol, on the loopback
+ * interface only. Every connection is one player with one GameSession, and
+ * is served by its own thread with plain blocking reads, just like
+ * HangmanMain reads the keyboard.
+ * <br>
+ * The threads are virtual threads when the runtime has them (Java 21 and
+ * later), so an idle connection costs little more than its socket and
+ * session. Otherwise each connection has a platform thread. A connection
+ * that sends a line longer than HangmanProtocol.MAX_LINE is closed, so no
+ * player can make its thread buffer without bound.
+ */
+public class HangmanTcpServer implements AutoCloseable {
+  private final HangmanDictionary dictionary;
+  private final ServerSocket listener;
+  private final ExecutorService executor;
+  private final AtomicLong nextId = new AtomicLong();
+
+  /**
+   * Create a server for the given dictionary, listening on the loopback
+   * interface. Call start to begin accepting connections.
+   * pre: dictionary != null, dictionary.size() > 0, 0 <= port <= 65535
+   *
+   * @param dictionary The words every session plays with.
+   * @param port       The port to listen on, 0 for any free port.
+   * @throws IOException if the port can't be bound.
+   */
+  public HangmanTcpServer(HangmanDictionary dictionary, int port) throws IOException {
+    if (dictionary == null || dictionary.size() == 0) {
+      throw new IllegalArgumentException("Sorry, the dictionary appears to be empty."
+          + "Please use a valid dictionary.");
+    }
+    this.dictionary = dictionary;
+    listener = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    executor = GameServer.newTaskExecutor();
+  }
+
+  /**
+   * Get the port this server listens on.
+   *
+   * @return the local port of this server.
+   */
+  public int getPort() {
+    return listener.getLocalPort();
+  }
+
+  /**
+   * Start accepting connections, on a thread of this server's own.
+   */
+  public void start() {
+    executor.execute(() -> {
+      while (!listener.isClosed()) {
+        try {
+          Socket socket = listener.accept();
+          executor.execute(() -> serve(socket));
+        } catch (IOException e) {
+          if (!listener.isClosed()) {
+            e.printStackTrace();
+          }
+        }
+      }
+    });
+  }
+
+  // Play with one connection until the player quits or hangs up.
+  private void serve(Socket socket) {
+    GameSession session = new GameSession(nextId.incrementAndGet(), dictionary);
+    try (Socket connection = socket;
+        InputStream in = new BufferedInputStream(connection.getInputStream());
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+            connection.getOutputStream(), StandardCharsets.US_ASCII))) {
+      connection.setTcpNoDelay(true);
+      byte[] line = new byte[HangmanProtocol.MAX_LINE];
+      String request = readLine(in, line);
+      while (request != null) {
+        String reply = HangmanProtocol.respond(session, request);
+        out.write(reply);
+        out.write('\n');
+        out.flush();
+        request = reply.equals(HangmanProtocol.BYE) ? null : readLine(in, line);
+      }
+    } catch (SocketException e) {
+      // The player hung up or the server is closing.
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /*
+   * Read one line into line, HangmanProtocol.MAX_LINE bytes long, and
+   * return it without its terminator, \n or \r\n. Returns null at the end
+   * of the stream, or the last line if it has no terminator. Throws
+   * SocketException, which closes the connection, if the line, with any
+   * \r, does not fit in line.
+   */
+  private static String readLine(InputStream in, byte[] line) throws IOException {
+    int length = 0;
+    int b = in.read();
+    if (b < 0) {
+      return null;
+    }
+    while (b >= 0 && b != '\n') {
+      if (length == line.length) {
+        throw new SocketException("The request is too long.");
+      }
+      line[length++] = (byte) b;
+      b = in.read();
+    }
+    if (length > 0 && line[length - 1] == '\r') {
+      length--;
+    }
+    return new String(line, 0, length, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Stop accepting connections. Connections already open are served
+   * until they close.
+   *
+   * @throws IOException if the listening socket can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    listener.close();
+    executor.shutdown();
+  }
+
+  /**
+   * Run a server until the process is stopped.
+   * <br>
+   * Usage: java HangmanTcpServer [dictionary [port]]
+   * <br>
+   * The dictionary may be a text file or one compiled by DictionaryCompiler
+   * (ending in .bin). Defaults: dictionary.txt, port 3140.
+   *
+   * @param args the optional settings, in order.
+   * @throws IOException if the dictionary can't be read or the port bound.
+   */
+  public static void main(String[] args) throws IOException {
+    Path file = Paths.get(args.length > 0 ? args[0] : "dictionary.txt");
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 3140;
+    HangmanDictionary dictionary = DictionaryLoader.open(file);
+    HangmanTcpServer server = new HangmanTcpServer(dictionary, port);
+    server.start();
+    System.out.println("Serving " + dictionary.size() + " words on "
+        + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+  }
+}
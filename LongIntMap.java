@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+/**
+ * A small open-addressed hash map from long keys to non-negative int values.
+ * Keys are probed linearly and nothing is boxed, so looking up the family of
+ * a pattern mask does not allocate.
+ */
+class LongIntMap {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private int[] values; // value + 1, 0 marks an empty slot
+  private int size;
+
+  /**
+   * Create an empty map.
+   */
+  LongIntMap() {
+    keys = new long[MIN_CAPACITY];
+    values = new int[MIN_CAPACITY];
+  }
+
+  /**
+   * Get the value stored for key.
+   *
+   * @param key The key to look up.
+   * @return the value for key, or -1 if key is not in the map.
+   */
+  int get(long key) {
+    int mask = keys.length - 1;
+    for (int i = slot(key, mask); values[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i] - 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Store value for key, replacing any previous value.
+   * pre: value >= 0
+   *
+   * @param key   The key to store.
+   * @param value The value for key.
+   */
+  void put(long key, int value) {
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (values[i] != 0 && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    if (values[i] == 0) {
+      size++;
+    }
+    keys[i] = key;
+    values[i] = value + 1;
+    if (size * 2 > keys.length) {
+      grow();
+    }
+  }
+
+  /**
+   * Add delta to the value stored for key, treating a missing key as 0.
+   * pre: the result is >= 0
+   *
+   * @param key   The key to update.
+   * @param delta The amount to add.
+   * @return the new value for key.
+   */
+  int add(long key, int delta) {
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (values[i] != 0) {
+      if (keys[i] == key) {
+        values[i] += delta;
+        return values[i] - 1;
+      }
+      i = (i + 1) & mask;
+    }
+    put(key, delta);
+    return delta;
+  }
+
+  /**
+   * The number of keys in this map.
+   *
+   * @return the number of keys in this map.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Get the keys in this map, in no particular order.
+   *
+   * @return a new array holding every key in this map.
+   */
+  long[] keys() {
+    long[] result = new long[size];
+    int n = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (values[i] != 0) {
+        result[n++] = keys[i];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Remove every key from this map, keeping its capacity.
+   */
+  void clear() {
+    Arrays.fill(values, 0);
+    size = 0;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != 0) {
+        int j = slot(oldKeys[i], mask);
+        while (values[j] != 0) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  // Spread the bits of the key so masks that differ only in high
+  // positions do not pile up in the same slot.
+  private static int slot(long key, int mask) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+}
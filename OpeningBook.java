@@ -0,0 +1,303 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The families the first guesses of a round split the words into, worked
+ * out ahead of time for every word length of a dictionary.
+ * <br>
+ * The first guess is the most expensive one, since every word of the length
+ * is still possible, and its families only depend on the dictionary. The
+ * book holds them for every length and letter. Optionally it also holds
+ * them for every second letter, after a large family the first letter keeps
+ * at EASY, MEDIUM and HARD. Those three difficulties keep the same family on
+ * the first guess: the largest one, the first in pattern order on ties.
+ * A HangmanManager with a book only has to gather the chosen family for
+ * these guesses, without counting the families first.
+ * <br>
+ * A book is built from a dictionary, usually by DictionaryCompiler, and
+ * saved to a file next to the compiled dictionary. The file records the
+ * dictionary's fingerprint, and read refuses a book whose fingerprint is not
+ * that of the dictionary it is given. It is read only once built, so any
+ * number of managers can share one.
+ */
+public class OpeningBook {
+  private static final int MAGIC = 0x424F4F4B; // "BOOK"
+  private static final int VERSION = 2;
+  private static final int LETTERS = HangmanDictionary.LETTERS;
+  // Second guesses are only worked out when the first keeps at least this
+  // many words. Below it they are cheap anyway, and small families split
+  // into many tiny ones that would make up most of the book.
+  private static final int MIN_SECOND_WORDS = 1024;
+
+  private final HangmanDictionary dictionary;
+  private final Opening[][] first; // [length][letter], null if not in the book
+  private final Opening[][][] second; // [length][first letter][letter]
+
+  private OpeningBook(HangmanDictionary dictionary, Opening[][] first, Opening[][][] second) {
+    this.dictionary = dictionary;
+    this.first = first;
+    this.second = second;
+  }
+
+  /**
+   * Work out the book for a dictionary. Lengths over 64 are left out.
+   * pre: dictionary != null
+   *
+   * @param dictionary    The words to build the book for.
+   * @param secondGuesses true to also work out every second guess.
+   * @return the book for the dictionary.
+   */
+  public static OpeningBook build(HangmanDictionary dictionary, boolean secondGuesses) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("Violation of precondition in build.");
+    }
+    int maxLength = dictionary.maxLength();
+    Opening[][] first = new Opening[maxLength + 1][];
+    Opening[][][] second = new Opening[maxLength + 1][][];
+    LongIntMap counts = new LongIntMap();
+    for (int length = 1; length <= maxLength; length++) {
+      int numWords = dictionary.numWords(length);
+      if (numWords == 0 || !dictionary.hasPositions(length)) {
+        continue;
+      }
+      int[] all = new int[numWords];
+      for (int id = 0; id < numWords; id++) {
+        all[id] = id;
+      }
+      first[length] = new Opening[LETTERS];
+      for (int letter = 0; letter < LETTERS; letter++) {
+        first[length][letter] = open(dictionary, length, all, letter, counts);
+      }
+      if (secondGuesses) {
+        second[length] = new Opening[LETTERS][LETTERS];
+        for (int letter = 0; letter < LETTERS; letter++) {
+          Opening opening = first[length][letter];
+          if (opening.sizes[opening.chosen] < MIN_SECOND_WORDS) {
+            continue;
+          }
+          int[] kept = gather(dictionary, length, all, letter,
+              opening.families[opening.chosen], opening.sizes[opening.chosen]);
+          for (int next = 0; next < LETTERS; next++) {
+            if (next != letter) {
+              second[length][letter][next] = open(dictionary, length, kept, next, counts);
+            }
+          }
+        }
+      }
+    }
+    return new OpeningBook(dictionary, first, second);
+  }
+
+  // The families letter splits the words in ids into.
+  private static Opening open(HangmanDictionary dictionary, int length, int[] ids, int letter,
+      LongIntMap counts) {
+    counts.clear();
+    for (int id : ids) {
+      counts.add(dictionary.positions(length, letter, id), 1);
+    }
+    long[] families = counts.keys();
+    for (int i = 0; i < families.length; i++) {
+      families[i] = HangmanManager.patternOrder(families[i]);
+    }
+    Arrays.sort(families);
+    int[] sizes = new int[families.length];
+    int chosen = 0;
+    for (int i = 0; i < families.length; i++) {
+      families[i] = HangmanManager.positionsOf(families[i]);
+      sizes[i] = counts.get(families[i]);
+      if (sizes[i] > sizes[chosen]) {
+        chosen = i;
+      }
+    }
+    return new Opening(families, sizes, chosen);
+  }
+
+  // The ids of the words in ids with letter at exactly the given positions.
+  private static int[] gather(HangmanDictionary dictionary, int length, int[] ids, int letter,
+      long positions, int size) {
+    int[] kept = new int[size];
+    int n = 0;
+    for (int id : ids) {
+      if (dictionary.positions(length, letter, id) == positions) {
+        kept[n++] = id;
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Get the dictionary this book was built for.
+   *
+   * @return the dictionary of this book.
+   */
+  public HangmanDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Get the families of the first guess of a round.
+   *
+   * @param length The length of the words.
+   * @param letter The letter guessed, as given by letterIndex.
+   * @return the families, or null if the book does not have them.
+   */
+  Opening first(int length, int letter) {
+    return length < first.length && first[length] != null ? first[length][letter] : null;
+  }
+
+  /**
+   * Get the families of the second guess of a round, after the first guess
+   * kept the chosen family of first(length, firstLetter).
+   *
+   * @param length      The length of the words.
+   * @param firstLetter The letter guessed first, as given by letterIndex.
+   * @param letter      The letter guessed second, as given by letterIndex.
+   * @return the families, or null if the book does not have them.
+   */
+  Opening second(int length, int firstLetter, int letter) {
+    return length < second.length && second[length] != null
+        ? second[length][firstLetter][letter] : null;
+  }
+
+  /**
+   * Save this book to a file, replacing the file if it exists.
+   * pre: file != null
+   *
+   * @param file The file to write.
+   * @throws IOException if the file can't be written.
+   */
+  public void write(Path file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(dictionary.fingerprint());
+      out.writeInt(dictionary.size());
+      out.writeInt(first.length - 1);
+      for (int length = 1; length < first.length; length++) {
+        out.writeInt(dictionary.numWords(length));
+        out.writeBoolean(first[length] != null);
+        out.writeBoolean(second[length] != null);
+        for (int letter = 0; first[length] != null && letter < LETTERS; letter++) {
+          write(out, first[length][letter]);
+          for (int next = 0; second[length] != null && next < LETTERS; next++) {
+            write(out, second[length][letter][next]);
+          }
+        }
+      }
+    }
+  }
+
+  private static void write(DataOutputStream out, Opening opening) throws IOException {
+    out.writeInt(opening == null ? 0 : opening.families.length);
+    if (opening != null) {
+      for (int i = 0; i < opening.families.length; i++) {
+        out.writeLong(opening.families[i]);
+        out.writeInt(opening.sizes[i]);
+      }
+      out.writeInt(opening.chosen);
+    }
+  }
+
+  /**
+   * Read a book saved by write.
+   * pre: file != null, dictionary != null
+   *
+   * @param file       The file to read.
+   * @param dictionary The dictionary the book was built for.
+   * @return the book in the file.
+   * @throws IOException if the file can't be read, is not a book, was
+   *                     built for another dictionary, or is damaged.
+   */
+  public static OpeningBook read(Path file, HangmanDictionary dictionary) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(file + " is not an opening book.");
+      }
+      int maxLength = dictionary.maxLength();
+      if (in.readLong() != dictionary.fingerprint() || in.readInt() != dictionary.size()
+          || in.readInt() != maxLength) {
+        throw new IOException(file + " was built for another dictionary.");
+      }
+      Opening[][] first = new Opening[maxLength + 1][];
+      Opening[][][] second = new Opening[maxLength + 1][][];
+      for (int length = 1; length <= maxLength; length++) {
+        if (in.readInt() != dictionary.numWords(length)) {
+          throw new IOException(file + " was built for another dictionary.");
+        }
+        boolean hasFirst = in.readBoolean();
+        boolean hasSecond = in.readBoolean();
+        if (hasFirst && !dictionary.hasPositions(length)) {
+          throw new IOException(file + " is damaged.");
+        }
+        if (hasFirst) {
+          first[length] = new Opening[LETTERS];
+          second[length] = hasSecond ? new Opening[LETTERS][LETTERS] : null;
+          for (int letter = 0; letter < LETTERS; letter++) {
+            Opening opening = read(in, file, dictionary.numWords(length));
+            first[length][letter] = opening;
+            int kept = opening == null ? 0 : opening.sizes[opening.chosen];
+            for (int next = 0; hasSecond && next < LETTERS; next++) {
+              second[length][letter][next] = read(in, file, kept);
+            }
+          }
+        }
+      }
+      return new OpeningBook(dictionary, first, second);
+    }
+  }
+
+  // Read one opening of the given number of words, checking that its
+  // families hold exactly those words and its chosen family is one of them.
+  private static Opening read(DataInputStream in, Path file, int numWords)
+      throws IOException {
+    int numFamilies = in.readInt();
+    if (numFamilies == 0) {
+      return null;
+    }
+    if (numFamilies < 0 || numFamilies > numWords) {
+      throw new IOException(file + " is damaged.");
+    }
+    long[] families = new long[numFamilies];
+    int[] sizes = new int[numFamilies];
+    long total = 0;
+    for (int i = 0; i < numFamilies; i++) {
+      families[i] = in.readLong();
+      sizes[i] = in.readInt();
+      if (sizes[i] <= 0) {
+        throw new IOException(file + " is damaged.");
+      }
+      total += sizes[i];
+    }
+    int chosen = in.readInt();
+    if (total != numWords || chosen < 0 || chosen >= numFamilies) {
+      throw new IOException(file + " is damaged.");
+    }
+    return new Opening(families, sizes, chosen);
+  }
+
+  /**
+   * The families a guess splits the words into.
+   */
+  static final class Opening {
+    /** The positions of the letter in each family, in ascending pattern order. */
+    final long[] families;
+    /** The number of words in each family. */
+    final int[] sizes;
+    /** The family EASY, MEDIUM and HARD keep on a first guess. */
+    final int chosen;
+
+    Opening(long[] families, int[] sizes, int chosen) {
+      this.families = families;
+      this.sizes = sizes;
+      this.chosen = chosen;
+    }
+  }
+}
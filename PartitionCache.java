@@ -0,0 +1,240 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the families guesses split words into, shared by any
+ * number of HangmanManagers on any number of threads.
+ * <br>
+ * The words still possible in a round are fixed by the word length, the
+ * letters guessed and the pattern, so the same state always splits the same
+ * way on the same guess. Simulations reach the same states over and over,
+ * and a manager with a cache only splits a state the first time any of
+ * them sees it. After that it takes the chosen family straight from the
+ * cache, without looking at the other words.
+ * <br>
+ * A cached split holds the ids of every word in the state, so the cache is
+ * bounded by the total number of ids it holds. Entries are spread over
+ * segments that are each locked on their own and evicted least recently
+ * used first.
+ */
+public class PartitionCache {
+  private static final int SEGMENTS = 16;
+
+  private final HangmanDictionary dictionary;
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Create an empty cache for rounds played with the given dictionary.
+   * pre: dictionary != null, maxWords > 0
+   *
+   * @param dictionary The words the rounds are played with.
+   * @param maxWords   The most word ids to hold across every entry.
+   */
+  public PartitionCache(HangmanDictionary dictionary, long maxWords) {
+    if (dictionary == null || maxWords <= 0) {
+      throw new IllegalArgumentException("Violation of precondition in PartitionCache.");
+    }
+    this.dictionary = dictionary;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(Math.max(1, maxWords / SEGMENTS));
+    }
+  }
+
+  /**
+   * Get the dictionary the cached splits come from.
+   *
+   * @return the dictionary of this cache.
+   */
+  public HangmanDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * @return the number of lookups that found a split.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of lookups that found nothing.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of splits evicted to make room for others.
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Get the number of splits in this cache.
+   *
+   * @return the number of entries in this cache.
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Remove every entry from this cache. The counters are kept.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+        segment.weight = 0;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    long hits = getHits();
+    long lookups = hits + getMisses();
+    return String.format("%d entries, %d hits, %d misses (%.1f%% hit), %d evictions",
+        size(), hits, lookups - hits, lookups == 0 ? 0 : 100.0 * hits / lookups,
+        getEvictions());
+  }
+
+  /**
+   * Look up the split of a state.
+   *
+   * @param key The state and the letter guessed.
+   * @return the split, or null if it is not in the cache.
+   */
+  Partition get(Key key) {
+    Segment segment = segmentFor(key);
+    Partition partition;
+    synchronized (segment) {
+      partition = segment.get(key);
+    }
+    (partition == null ? misses : hits).increment();
+    return partition;
+  }
+
+  /**
+   * Add the split of a state, unless it alone is too big to keep.
+   *
+   * @param key       The state and the letter guessed.
+   * @param partition The split of the state by the letter.
+   */
+  void put(Key key, Partition partition) {
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      if (partition.weight() <= segment.maxWeight && segment.put(key, partition) == null) {
+        segment.weight += partition.weight();
+        segment.trim();
+      }
+    }
+  }
+
+  private Segment segmentFor(Key key) {
+    return segments[(key.hashCode() >>> 16 ^ key.hashCode()) & (SEGMENTS - 1)];
+  }
+
+  // One lock's share of the cache, in least recently used order.
+  private class Segment extends LinkedHashMap<Key, Partition> {
+    private static final long serialVersionUID = 1L;
+
+    private final long maxWeight;
+    private long weight;
+
+    private Segment(long maxWeight) {
+      super(16, 0.75f, true);
+      this.maxWeight = maxWeight;
+    }
+
+    // Evict from the least recently used end until the ids fit.
+    private void trim() {
+      Iterator<Map.Entry<Key, Partition>> entries = entrySet().iterator();
+      while (weight > maxWeight && entries.hasNext()) {
+        weight -= entries.next().getValue().weight();
+        entries.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * A round's state, and the letter guessed in it.
+   */
+  static final class Key {
+    private final int length;
+    private final int guessedLetters;
+    private final String pattern;
+    private final int letter;
+    private final int hash;
+
+    /**
+     * Create the key of a state.
+     *
+     * @param length         The length of the words.
+     * @param guessedLetters The letters guessed before, as a set of bits.
+     * @param pattern        The pattern before the guess.
+     * @param letter         The letter guessed, as given by letterIndex.
+     */
+    Key(int length, int guessedLetters, String pattern, int letter) {
+      this.length = length;
+      this.guessedLetters = guessedLetters;
+      this.pattern = pattern;
+      this.letter = letter;
+      hash = ((pattern.hashCode() * 31 + guessedLetters) * 31 + length) * 31 + letter;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return hash == key.hash && length == key.length && guessedLetters == key.guessedLetters
+          && letter == key.letter && pattern.equals(key.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * The families a guess split a state's words into.
+   */
+  static final class Partition {
+    /** The positions of the letter in each family, in ascending pattern order. */
+    final long[] families;
+    /** The number of words in each family. */
+    final int[] sizes;
+    /** The ids of the words, a family at a time, in the order of families. */
+    final int[] ids;
+    /** Where each family starts in ids. */
+    final int[] starts;
+
+    Partition(long[] families, int[] sizes, int[] ids, int[] starts) {
+      this.families = families;
+      this.sizes = sizes;
+      this.ids = ids;
+      this.starts = starts;
+    }
+
+    // The cost of keeping this split, roughly one per id.
+    long weight() {
+      return ids.length + families.length;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Synthetic dictionaries for the benchmarks, generated locally so every run
+ * sees the same words without shipping a word list.
+ * <br>
+ * Words are MIN_LENGTH to MAX_LENGTH letters long, spread evenly over the
+ * lengths, with letters drawn by their frequency in English text so guesses
+ * split the words into families about as unevenly as a real dictionary.
+ */
+final class Dictionaries {
+  static final int MIN_LENGTH = 4;
+  static final int MAX_LENGTH = 20;
+
+  // Relative frequency of a - z in English text, about per 1000 letters.
+  private static final int[] FREQUENCIES = {
+    82, 15, 28, 43, 127, 22, 20, 61, 70, 2, 8, 40, 24,
+    67, 75, 19, 1, 60, 63, 91, 28, 10, 24, 2, 20, 1
+  };
+  private static final long SEED = 314;
+
+  private static final Map<Integer, Set<String>> WORDS = new HashMap<>();
+
+  private Dictionaries() {
+  }
+
+  /**
+   * Get the synthetic dictionary with the given number of words.
+   * Dictionaries are cached, so each size is generated once per JVM.
+   */
+  static synchronized Set<String> words(int count) {
+    return WORDS.computeIfAbsent(count, Dictionaries::generate);
+  }
+
+  /**
+   * Write the synthetic dictionary with the given number of words to a
+   * temporary text file, one word per line.
+   */
+  static Path writeText(int count) throws IOException {
+    Path file = Files.createTempFile("dictionary-" + count + "-", ".txt");
+    file.toFile().deleteOnExit();
+    try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+      for (String word : words(count)) {
+        out.write(word);
+        out.newLine();
+      }
+    }
+    return file;
+  }
+
+  private static Set<String> generate(int count) {
+    int n = 0;
+    for (int frequency : FREQUENCIES) {
+      n += frequency;
+    }
+    char[] letters = new char[n];
+    n = 0;
+    for (int letter = 0; letter < FREQUENCIES.length; letter++) {
+      for (int i = 0; i < FREQUENCIES[letter]; i++) {
+        letters[n++] = (char) ('a' + letter);
+      }
+    }
+    Random random = new Random(SEED);
+    Set<String> words = new TreeSet<>();
+    char[] word = new char[MAX_LENGTH];
+    int lengths = MAX_LENGTH - MIN_LENGTH + 1;
+    for (int i = 0; words.size() < count; i++) {
+      int length = MIN_LENGTH + i % lengths;
+      for (int j = 0; j < length; j++) {
+        word[j] = letters[random.nextInt(n)];
+      }
+      words.add(new String(word, 0, length));
+    }
+    return Collections.unmodifiableSet(words);
+  }
+}
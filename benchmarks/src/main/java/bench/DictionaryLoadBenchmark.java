@@ -0,0 +1,67 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks getting a dictionary ready to play. loadText is the work
+ * HangmanMain.getDictionary does for dictionary.txt, mapCompiled the work
+ * it does for dictionary.bin, and indexSet builds the index from a set of
+ * words already in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DictionaryLoadBenchmark {
+  @Param({"10000", "100000", "1000000"})
+  private int words;
+
+  private Path text;
+  private Path compiled;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    text = Dictionaries.writeText(words);
+    compiled = Files.createTempFile("dictionary-" + words + "-", ".bin");
+    Game.compileDictionary(Game.loadDictionary(text), compiled);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(text);
+    Files.deleteIfExists(compiled);
+  }
+
+  @Benchmark
+  public Object loadText() {
+    return Game.loadDictionary(text);
+  }
+
+  @Benchmark
+  public Object mapCompiled() {
+    return Game.mapDictionary(compiled);
+  }
+
+  @Benchmark
+  public Object indexSet() {
+    return Game.dictionary(Dictionaries.words(words));
+  }
+}
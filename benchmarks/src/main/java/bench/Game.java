@@ -0,0 +1,247 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Calls into the game for the benchmarks.
+ * <br>
+ * The game classes live in the unnamed package. JMH only accepts benchmarks
+ * in a named package, and code in a named package cannot name a class in the
+ * unnamed package, so the game is reached through method handles looked up
+ * by name. The handles are static final, so the JIT inlines them like
+ * direct calls. Game objects are passed around as Object.
+ */
+final class Game {
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final Class<?> DICTIONARY = find("HangmanDictionary");
+  private static final Class<?> MANAGER = find("HangmanManager");
+  private static final Class<?> DIFFICULTY = find("HangmanDifficulty");
+
+  private static final MethodHandle DICTIONARY_OF = bindStatic(DICTIONARY, "of",
+      DICTIONARY, Set.class);
+  private static final MethodHandle DICTIONARY_MAP = bindStatic(DICTIONARY, "map",
+      DICTIONARY, Path.class);
+  private static final MethodHandle LOAD = bindStatic(find("DictionaryLoader"), "load",
+      DICTIONARY, Path.class);
+  private static final MethodHandle COMPILE = bindStatic(find("DictionaryCompiler"),
+      "compile", void.class, DICTIONARY, Path.class);
+  private static final MethodHandle NEW_MANAGER = bindConstructor(MANAGER,
+      DICTIONARY, boolean.class);
+  private static final MethodHandle PREP_FOR_ROUND = bind(MANAGER, "prepForRound",
+      void.class, int.class, int.class, DIFFICULTY);
+  private static final MethodHandle MAKE_GUESS = bind(MANAGER, "makeGuess",
+      void.class, char.class);
+  private static final MethodHandle DESCRIBE_LAST_GUESS = bind(MANAGER, "describeLastGuess",
+      TreeMap.class);
+  private static final MethodHandle NUM_WORDS = bind(MANAGER, "numWords",
+      int.class, int.class);
+  private static final MethodHandle NUM_WORDS_CURRENT = bind(MANAGER, "numWordsCurrent",
+      int.class);
+  private static final MethodHandle GUESSES_LEFT = bind(MANAGER, "getGuessesLeft",
+      int.class);
+  private static final MethodHandle GUESSES_MADE = bind(MANAGER, "getGuessesMade",
+      String.class);
+  private static final MethodHandle PATTERN = bind(MANAGER, "getPattern",
+      String.class);
+  private static final MethodHandle IS_SOLVED = bind(MANAGER, "isSolved",
+      boolean.class);
+  private static final MethodHandle SECRET_WORD = bind(MANAGER, "getSecretWord",
+      String.class);
+
+  private Game() {
+  }
+
+  /** The HangmanDifficulty with the given name, as an Object. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static Object difficulty(String name) {
+    return Enum.valueOf((Class) DIFFICULTY, name);
+  }
+
+  static Object dictionary(Set<String> words) {
+    try {
+      return (Object) DICTIONARY_OF.invokeExact(words);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object mapDictionary(Path file) {
+    try {
+      return (Object) DICTIONARY_MAP.invokeExact(file);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object loadDictionary(Path file) {
+    try {
+      return (Object) LOAD.invokeExact(file);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void compileDictionary(Object dictionary, Path file) {
+    try {
+      COMPILE.invokeExact(dictionary, file);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object manager(Object dictionary) {
+    try {
+      return (Object) NEW_MANAGER.invokeExact(dictionary, false);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void prepForRound(Object manager, int wordLen, int numGuesses, Object diff) {
+    try {
+      PREP_FOR_ROUND.invokeExact(manager, wordLen, numGuesses, diff);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void makeGuess(Object manager, char guess) {
+    try {
+      MAKE_GUESS.invokeExact(manager, guess);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static TreeMap<?, ?> describeLastGuess(Object manager) {
+    try {
+      return (TreeMap<?, ?>) DESCRIBE_LAST_GUESS.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static int numWords(Object manager, int length) {
+    try {
+      return (int) NUM_WORDS.invokeExact(manager, length);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static int numWordsCurrent(Object manager) {
+    try {
+      return (int) NUM_WORDS_CURRENT.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static int getGuessesLeft(Object manager) {
+    try {
+      return (int) GUESSES_LEFT.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static String getGuessesMade(Object manager) {
+    try {
+      return (String) GUESSES_MADE.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static String getPattern(Object manager) {
+    try {
+      return (String) PATTERN.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static boolean isSolved(Object manager) {
+    try {
+      return (boolean) IS_SOLVED.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static String getSecretWord(Object manager) {
+    try {
+      return (String) SECRET_WORD.invokeExact(manager);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  private static Class<?> find(String name) {
+    try {
+      return Class.forName(name);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("The game classes are not on the class path.", e);
+    }
+  }
+
+  // Look up an instance method, typed with Object in place of every game
+  // class, so call sites never name a game class.
+  private static MethodHandle bind(Class<?> owner, String name, Class<?> returns,
+      Class<?>... params) {
+    try {
+      MethodHandle handle = LOOKUP.findVirtual(owner, name, MethodType.methodType(returns, params));
+      return handle.asType(hideGameTypes(handle.type()));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("The game has no method " + name, e);
+    }
+  }
+
+  private static MethodHandle bindStatic(Class<?> owner, String name, Class<?> returns,
+      Class<?>... params) {
+    try {
+      MethodHandle handle = LOOKUP.findStatic(owner, name, MethodType.methodType(returns, params));
+      return handle.asType(hideGameTypes(handle.type()));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("The game has no method " + name, e);
+    }
+  }
+
+  private static MethodHandle bindConstructor(Class<?> owner, Class<?>... params) {
+    try {
+      MethodHandle handle = LOOKUP.findConstructor(owner,
+          MethodType.methodType(void.class, params));
+      return handle.asType(hideGameTypes(handle.type()));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("The game has no constructor for " + owner, e);
+    }
+  }
+
+  // Replace every game class in type with Object.
+  private static MethodType hideGameTypes(MethodType type) {
+    for (int i = 0; i < type.parameterCount(); i++) {
+      if (isGameClass(type.parameterType(i))) {
+        type = type.changeParameterType(i, Object.class);
+      }
+    }
+    return isGameClass(type.returnType()) ? type.changeReturnType(Object.class) : type;
+  }
+
+  private static boolean isGameClass(Class<?> type) {
+    return !type.isPrimitive() && type.getPackageName().isEmpty();
+  }
+
+  private static RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new IllegalStateException(t);
+  }
+}
@@ -0,0 +1,94 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks HangmanManager.makeGuess, which includes activePattern, for
+ * every difficulty over word lengths from 4 to 20 and dictionaries of 10k,
+ * 100k and 1M words.
+ * <br>
+ * Each benchmark reports throughput and, from SampleTime, latency
+ * percentiles. Add the gc profiler for allocation rates and save the
+ * results as JSON to compare runs:
+ * <pre>
+ *   java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff results.json
+ *   java -jar benchmarks/target/benchmarks.jar MakeGuess -p words=100000 -p wordLength=8
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MakeGuessBenchmark {
+  // Letters from most to least frequent in English.
+  private static final char[] GUESSES = "etaoinshrdlcumwfgypbvkjxqz".toCharArray();
+  private static final int NUM_GUESSES = 10;
+
+  @Param({"10000", "100000", "1000000"})
+  private int words;
+
+  @Param({"4", "8", "12", "16", "20"})
+  private int wordLength;
+
+  @Param({"EASY", "MEDIUM", "HARD"})
+  private String difficulty;
+
+  private Object manager;
+  private Object diff;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    manager = Game.manager(Game.dictionary(Dictionaries.words(words)));
+    diff = Game.difficulty(difficulty);
+  }
+
+  /**
+   * Start a round and make its first guess, the most expensive one since
+   * every word of the length is still live. The letter changes each time.
+   */
+  @Benchmark
+  public int firstGuess() {
+    Game.prepForRound(manager, wordLength, NUM_GUESSES, diff);
+    next = (next + 1) % GUESSES.length;
+    Game.makeGuess(manager, GUESSES[next]);
+    return Game.numWordsCurrent(manager);
+  }
+
+  /**
+   * The first guess, then the debugging breakdown of its families, to
+   * show what building the map costs on top of the guess.
+   */
+  @Benchmark
+  public Object firstGuessDescribed() {
+    firstGuess();
+    return Game.describeLastGuess(manager);
+  }
+
+  /**
+   * Play a whole round, guessing letters from most to least frequent
+   * until the word is solved or the guesses run out.
+   */
+  @Benchmark
+  public String fullRound() {
+    Game.prepForRound(manager, wordLength, NUM_GUESSES, diff);
+    for (int i = 0; i < GUESSES.length && Game.getGuessesLeft(manager) > 0
+        && !Game.isSolved(manager); i++) {
+      Game.makeGuess(manager, GUESSES[i]);
+    }
+    return Game.getPattern(manager);
+  }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the HangmanManager queries HangmanMain makes every turn or
+ * every game: numWords, getGuessesMade and getSecretWord. The round is
+ * set up once, a few guesses in, and not changed by the benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ManagerBenchmark {
+  private static final String OPENING = "etaoin";
+  private static final int WORD_LENGTH = 8;
+
+  @Param({"10000", "100000", "1000000"})
+  private int words;
+
+  private Object manager;
+  private int length;
+
+  @Setup
+  public void setUp() {
+    manager = Game.manager(Game.dictionary(Dictionaries.words(words)));
+    Game.prepForRound(manager, WORD_LENGTH, OPENING.length() + 1, Game.difficulty("HARD"));
+    for (int i = 0; i < OPENING.length(); i++) {
+      Game.makeGuess(manager, OPENING.charAt(i));
+    }
+  }
+
+  @Benchmark
+  public int numWords() {
+    length = length == Dictionaries.MAX_LENGTH ? Dictionaries.MIN_LENGTH : length + 1;
+    return Game.numWords(manager, length);
+  }
+
+  @Benchmark
+  public String getGuessesMade() {
+    return Game.getGuessesMade(manager);
+  }
+
+  @Benchmark
+  public String getSecretWord() {
+    return Game.getSecretWord(manager);
+  }
+}
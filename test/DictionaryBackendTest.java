@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that the compiled dictionary, mapped from a file or copied off the
+ * heap, answers every lookup exactly as ArrayDictionary does. The words mix
+ * English letters with other ISO-8859-1 characters and run from 2 to 100
+ * letters, so lengths with position tables, lengths past 64 and the last
+ * few characters of a record that don't fill a long are all covered.
+ * <br>
+ * Run by Surefire as a plain test class: every public method whose name
+ * starts with test is a test, and fails by throwing.
+ */
+public class DictionaryBackendTest {
+  private static final int[] LENGTHS = {2, 7, 8, 9, 63, 64, 65, 71, 72, 100};
+  private static final int WORDS_PER_LENGTH = 40;
+  // Characters the words are made of: English letters, then some that only
+  // ISO-8859-1 has, including one with the high bit of every byte set.
+  private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzéüßñÿ";
+  // Characters no word has, one of them outside ISO-8859-1 altogether.
+  private static final String ABSENT = "àĀA-";
+
+  private final HangmanDictionary expected = HangmanDictionary.of(words(1234));
+
+  public void testMapped() throws IOException {
+    Path file = Files.createTempFile("hangman", ".bin");
+    try {
+      DictionaryCompiler.compile(expected, file);
+      assertSame(expected, HangmanDictionary.map(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  public void testOffHeap() {
+    assertSame(expected, HangmanDictionary.offHeap(expected));
+  }
+
+  // Random words of every length in LENGTHS, in a fixed order.
+  private static Set<String> words(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    Set<String> words = new LinkedHashSet<>();
+    for (int length : LENGTHS) {
+      int size = words.size() + WORDS_PER_LENGTH;
+      while (words.size() < size) {
+        // A small alphabet per word, so letters repeat within it.
+        String letters = ALPHABET.substring(random.nextInt(ALPHABET.length() - 3));
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+          word[i] = letters.charAt(random.nextInt(Math.min(letters.length(), 6)));
+        }
+        words.add(new String(word));
+      }
+    }
+    return words;
+  }
+
+  private static void assertSame(HangmanDictionary expected, HangmanDictionary actual) {
+    check(actual.size() == expected.size(), "size");
+    check(actual.maxLength() == expected.maxLength(), "maxLength");
+    check(actual.fingerprint() == expected.fingerprint(), "fingerprint");
+    long[] expectedMask = new long[2];
+    long[] actualMask = new long[2];
+    for (int length = 0; length <= expected.maxLength() + 1; length++) {
+      check(actual.numWords(length) == expected.numWords(length), "numWords(" + length + ")");
+      check(actual.hasPositions(length) == expected.hasPositions(length),
+          "hasPositions(" + length + ")");
+      for (int id = 0; id < expected.numWords(length); id++) {
+        String where = "word " + id + " of length " + length;
+        check(actual.word(length, id).equals(expected.word(length, id)), where);
+        if (expected.hasPositions(length)) {
+          for (int letter = 0; letter < HangmanDictionary.LETTERS; letter++) {
+            check(actual.positions(length, letter, id) == expected.positions(length, letter, id),
+                "positions of letter " + letter + " in " + where);
+          }
+        }
+        for (char ch : (ALPHABET + ABSENT).toCharArray()) {
+          Arrays.fill(expectedMask, -1L);
+          Arrays.fill(actualMask, -1L);
+          expected.positions(length, ch, id, expectedMask);
+          actual.positions(length, ch, id, actualMask);
+          check(Arrays.equals(actualMask, expectedMask),
+              "positions of " + ch + " in " + where + ": " + Arrays.toString(actualMask)
+              + " instead of " + Arrays.toString(expectedMask));
+        }
+      }
+    }
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new AssertionError("Wrong " + what);
+    }
+  }
+}
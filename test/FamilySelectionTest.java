@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks that EASY, MEDIUM and HARD keep the same families the original
+ * TreeMap based manager kept, on a small dictionary whose guesses often
+ * split words into families of equal size. The expected lines were recorded
+ * from that manager: after each guess, the pattern, the guesses left, the
+ * words left and every family with its size. Words of 66 letters take the
+ * path for words longer than 64.
+ * <br>
+ * Run by Surefire as a plain test class: every public method whose name
+ * starts with test is a test, and fails by throwing.
+ */
+public class FamilySelectionTest {
+  private static final String[] SHORT = {
+    "able", "acne", "aloe", "bake", "bale", "bead", "beak", "bean",
+    "bear", "beat", "cake", "cane", "cape", "care", "case", "dale"
+  };
+  // Each long word is one of these, then 60 z's, then the same again.
+  private static final String[] ENDS = {"abe", "abb", "eab", "bea", "aab", "bbe", "eea", "bab"};
+
+  // The difficulty, the guesses, then a line per guess. Runs of 8 or more
+  // of one character are written as the character and {count}.
+  private static final String[][] ROUNDS = {
+    {"EASY", "eabrtcnk",
+      "---e 20 11 {---e=11, -e--=5}",
+      "a--e 20 3 {-a-e=8, a--e=3}",
+      "a--e 19 2 {a--e=2, ab-e=1}",
+      "a--e 18 2 {a--e=2}",
+      "a--e 17 2 {a--e=2}",
+      "ac-e 17 1 {a--e=1, ac-e=1}",
+      "acne 17 1 {acne=1}",
+      "acne 16 1 {acne=1}"},
+    {"EASY", "tsaeblrc",
+      "---- 19 15 {----=15, ---t=1}",
+      "--s- 19 1 {----=14, --s-=1}",
+      "-as- 19 1 {-as-=1}",
+      "-ase 19 1 {-ase=1}",
+      "-ase 18 1 {-ase=1}",
+      "-ase 17 1 {-ase=1}",
+      "-ase 16 1 {-ase=1}",
+      "case 16 1 {case=1}"},
+    {"EASY", "abez",
+      "--a-{62}a 20 2 {-{66}=1, --a-{62}a=2, -a-{62}a-=2, a-{62}a--=2, aa-{61}aa-=1}",
+      "b-a-{60}b-a 20 1 {--a-{62}a=1, b-a-{60}b-a=1}",
+      "bea-{60}bea 20 1 {bea-{60}bea=1}",
+      "beaz{60}bea 20 1 {beaz{60}bea=1}"},
+    {"EASY", "ebaz",
+      "-{66} 19 3 {-{66}=3, --e-{62}e=2, -e-{62}e-=1, e-{62}e--=1, ee-{61}ee-=1}",
+      "b-b-{60}b-b 19 1 {--b-{62}b=1, -bb-{61}bb=1, b-b-{60}b-b=1}",
+      "bab-{60}bab 19 1 {bab-{60}bab=1}",
+      "babz{60}bab 19 1 {babz{60}bab=1}"},
+    {"MEDIUM", "eabrtcnk",
+      "---e 20 11 {---e=11, -e--=5}",
+      "-a-e 20 8 {-a-e=8, a--e=3}",
+      "-a-e 19 6 {-a-e=6, ba-e=2}",
+      "-are 19 1 {-a-e=5, -are=1}",
+      "-are 18 1 {-are=1}",
+      "care 18 1 {care=1}",
+      "care 17 1 {care=1}",
+      "care 16 1 {care=1}"},
+    {"MEDIUM", "tsaeblrc",
+      "---- 19 15 {----=15, ---t=1}",
+      "---- 18 14 {----=14, --s-=1}",
+      "-a-- 18 7 {--a-=4, -a--=7, a---=3}",
+      "-a-e 18 7 {-a-e=7}",
+      "-a-e 17 5 {-a-e=5, ba-e=2}",
+      "-a-e 16 4 {-a-e=4, -ale=1}",
+      "-a-e 15 3 {-a-e=3, -are=1}",
+      "ca-e 15 3 {ca-e=3}"},
+    {"MEDIUM", "abez",
+      "--a-{62}a 20 2 {-{66}=1, --a-{62}a=2, -a-{62}a-=2, a-{62}a--=2, aa-{61}aa-=1}",
+      "--a-{62}a 19 1 {--a-{62}a=1, b-a-{60}b-a=1}",
+      "eea-{60}eea 19 1 {eea-{60}eea=1}",
+      "eeaz{60}eea 19 1 {eeaz{60}eea=1}"},
+    {"MEDIUM", "ebaz",
+      "-{66} 19 3 {-{66}=3, --e-{62}e=2, -e-{62}e-=1, e-{62}e--=1, ee-{61}ee-=1}",
+      "--b-{62}b 19 1 {--b-{62}b=1, -bb-{61}bb=1, b-b-{60}b-b=1}",
+      "aab-{60}aab 19 1 {aab-{60}aab=1}",
+      "aabz{60}aab 19 1 {aabz{60}aab=1}"},
+    {"HARD", "eabrtcnk",
+      "---e 20 11 {---e=11, -e--=5}",
+      "-a-e 20 8 {-a-e=8, a--e=3}",
+      "-a-e 19 6 {-a-e=6, ba-e=2}",
+      "-a-e 18 5 {-a-e=5, -are=1}",
+      "-a-e 17 5 {-a-e=5}",
+      "ca-e 17 4 {-a-e=1, ca-e=4}",
+      "ca-e 16 3 {ca-e=3, cane=1}",
+      "ca-e 15 2 {ca-e=2, cake=1}"},
+    {"HARD", "tsaeblrc",
+      "---- 19 15 {----=15, ---t=1}",
+      "---- 18 14 {----=14, --s-=1}",
+      "-a-- 18 7 {--a-=4, -a--=7, a---=3}",
+      "-a-e 18 7 {-a-e=7}",
+      "-a-e 17 5 {-a-e=5, ba-e=2}",
+      "-a-e 16 4 {-a-e=4, -ale=1}",
+      "-a-e 15 3 {-a-e=3, -are=1}",
+      "ca-e 15 3 {ca-e=3}"},
+    {"HARD", "abez",
+      "--a-{62}a 20 2 {-{66}=1, --a-{62}a=2, -a-{62}a-=2, a-{62}a--=2, aa-{61}aa-=1}",
+      "--a-{62}a 19 1 {--a-{62}a=1, b-a-{60}b-a=1}",
+      "eea-{60}eea 19 1 {eea-{60}eea=1}",
+      "eeaz{60}eea 19 1 {eeaz{60}eea=1}"},
+    {"HARD", "ebaz",
+      "-{66} 19 3 {-{66}=3, --e-{62}e=2, -e-{62}e-=1, e-{62}e--=1, ee-{61}ee-=1}",
+      "--b-{62}b 19 1 {--b-{62}b=1, -bb-{61}bb=1, b-b-{60}b-b=1}",
+      "aab-{60}aab 19 1 {aab-{60}aab=1}",
+      "aabz{60}aab 19 1 {aabz{60}aab=1}"}
+  };
+
+  public void testFamilies() {
+    Set<String> words = new TreeSet<>(Arrays.asList(SHORT));
+    for (String end : ENDS) {
+      words.add(end + "z".repeat(60) + end);
+    }
+    HangmanManager manager = new HangmanManager(HangmanDictionary.of(words), false);
+    for (String[] round : ROUNDS) {
+      String guesses = round[1];
+      manager.prepForRound(guesses.length() == 4 ? 66 : 4, 20,
+          HangmanDifficulty.valueOf(round[0]));
+      for (int i = 0; i < guesses.length(); i++) {
+        manager.makeGuess(guesses.charAt(i));
+        String line = squeeze(manager.getPattern() + " " + manager.getGuessesLeft() + " "
+            + manager.numWordsCurrent() + " " + manager.describeLastGuess());
+        String where = round[0] + " " + guesses.substring(0, i + 1);
+        check(line.equals(round[i + 2]), "After " + where + ": " + line
+            + " instead of " + round[i + 2]);
+      }
+    }
+  }
+
+  // Write each run of 8 or more of one character as it and {count}.
+  private static String squeeze(String line) {
+    StringBuilder squeezed = new StringBuilder();
+    int i = 0;
+    while (i < line.length()) {
+      int end = i;
+      while (end < line.length() && line.charAt(end) == line.charAt(i)) {
+        end++;
+      }
+      if (end - i >= 8) {
+        squeezed.append(line.charAt(i)).append('{').append(end - i).append('}');
+      } else {
+        squeezed.append(line, i, end);
+      }
+      i = end;
+    }
+    return squeezed.toString();
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new AssertionError(what);
+    }
+  }
+}
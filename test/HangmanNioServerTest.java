@@ -0,0 +1,71 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Checks that HangmanNioServer holds at most MAX_PENDING requests for a
+ * player that sends as fast as it can and never reads a reply, however
+ * short the lines.
+ * <br>
+ * Run by Surefire as a plain test class: every public method whose name
+ * starts with test is a test, and fails by throwing.
+ */
+public class HangmanNioServerTest {
+  private static final long TIMEOUT_NANOS = 20_000_000_000L;
+
+  private final HangmanDictionary dictionary =
+      HangmanDictionary.of(Set.of("apple", "mango", "peach"));
+
+  public void testPlayerThatNeverReads() throws Exception {
+    try (HangmanNioServer server = new HangmanNioServer(dictionary, 0, 2)) {
+      server.start();
+      Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+      Thread sender = new Thread(() -> flood(socket));
+      sender.setDaemon(true);
+      sender.start();
+      // Empty lines, each answered with an error, until the replies fill
+      // the socket's buffers and the server stops reading.
+      int most = 0;
+      long start = System.nanoTime();
+      while (server.getPendingRequests() < HangmanNioServer.MAX_PENDING) {
+        most = Math.max(most, server.getPendingRequests());
+        check(System.nanoTime() - start < TIMEOUT_NANOS, "The server never filled up.");
+        Thread.sleep(1);
+      }
+      for (int i = 0; i < 200; i++) {
+        most = Math.max(most, server.getPendingRequests());
+        Thread.sleep(1);
+      }
+      check(most <= HangmanNioServer.MAX_PENDING, "The server held " + most + " requests.");
+      socket.close();
+      start = System.nanoTime();
+      while (server.getPendingRequests() > 0) {
+        check(System.nanoTime() - start < TIMEOUT_NANOS, "The requests were never dropped.");
+        Thread.sleep(1);
+      }
+    }
+  }
+
+  // Send empty lines until the socket is closed.
+  private static void flood(Socket socket) {
+    byte[] lines = new byte[1 << 16];
+    Arrays.fill(lines, (byte) '\n');
+    try {
+      OutputStream out = socket.getOutputStream();
+      while (true) {
+        out.write(lines);
+      }
+    } catch (IOException e) {
+      // The test closed the socket.
+    }
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new AssertionError(what);
+    }
+  }
+}
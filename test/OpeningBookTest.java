@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Checks that an opening book saved next to a compiled dictionary reads
+ * back with the families a manager without a book counts for itself, and
+ * that a damaged book is refused.
+ * <br>
+ * Run by Surefire as a plain test class: every public method whose name
+ * starts with test is a test, and fails by throwing.
+ */
+public class OpeningBookTest {
+  private static final int LENGTH = 6;
+
+  private final HangmanDictionary words = HangmanDictionary.of(words(5));
+
+  public void testRoundTrip() throws IOException {
+    Path dir = Files.createTempDirectory("hangman");
+    Path compiled = dir.resolve("words.bin");
+    Path file = DictionaryCompiler.bookFor(compiled);
+    try {
+      DictionaryCompiler.compile(words, compiled);
+      HangmanDictionary dictionary = HangmanDictionary.map(compiled);
+      OpeningBook.build(dictionary, true).write(file);
+      OpeningBook book = OpeningBook.read(file, dictionary);
+      int seconds = 0;
+      for (int letter = 0; letter < HangmanDictionary.LETTERS; letter++) {
+        char guess = (char) ('a' + letter);
+        HangmanManager manager = new HangmanManager(dictionary, false);
+        manager.prepForRound(LENGTH, 10, HangmanDifficulty.HARD);
+        manager.makeGuess(guess);
+        OpeningBook.Opening opening = book.first(LENGTH, letter);
+        checkSame(opening, manager, "-".repeat(LENGTH), guess);
+        for (int next = 0; next < HangmanDictionary.LETTERS; next++) {
+          OpeningBook.Opening second = book.second(LENGTH, letter, next);
+          if (second != null) {
+            seconds++;
+            HangmanManager after = new HangmanManager(dictionary, false);
+            after.prepForRound(LENGTH, 10, HangmanDifficulty.HARD);
+            after.makeGuess(guess);
+            after.makeGuess((char) ('a' + next));
+            checkSame(second, after, manager.getPattern(), (char) ('a' + next));
+          }
+        }
+      }
+      check(seconds > 0, "The book has no second guesses.");
+    } finally {
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(compiled);
+      Files.delete(dir);
+    }
+  }
+
+  public void testDamagedBook() throws IOException {
+    Path file = Files.createTempFile("hangman", ".book");
+    try {
+      OpeningBook.build(words, false).write(file);
+      // The book ends with the last opening: its last size, then its chosen family.
+      long end = Files.size(file);
+      checkRefused(file, end - 4, 1 << 20);
+      OpeningBook.build(words, false).write(file);
+      int size;
+      try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+        raf.seek(end - 8);
+        size = raf.readInt();
+      }
+      checkRefused(file, end - 8, size + 1);
+      OpeningBook.build(words, false).write(file);
+      try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+        raf.setLength(end - 2);
+      }
+      checkRefused(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  // The opening has the families and sizes the manager counted for its
+  // last guess, and the family it kept is the chosen one.
+  private static void checkSame(OpeningBook.Opening opening, HangmanManager manager,
+      String before, char guess) {
+    TreeMap<String, Integer> families = new TreeMap<>();
+    for (int i = 0; i < opening.families.length; i++) {
+      families.put(pattern(before, opening.families[i], guess), opening.sizes[i]);
+    }
+    String where = " for " + guess + " after " + before;
+    check(families.equals(manager.describeLastGuess()), "Wrong families" + where);
+    String chosen = pattern(before, opening.families[opening.chosen], guess);
+    check(chosen.equals(manager.getPattern()), "Wrong chosen family" + where);
+  }
+
+  private static String pattern(String before, long positions, char guess) {
+    char[] pattern = before.toCharArray();
+    for (long rest = positions; rest != 0; rest &= rest - 1) {
+      pattern[Long.numberOfTrailingZeros(rest)] = guess;
+    }
+    return new String(pattern);
+  }
+
+  // Overwrite the int at offset and check that the book is refused.
+  private void checkRefused(Path file, long offset, int value) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.seek(offset);
+      raf.writeInt(value);
+    }
+    checkRefused(file);
+  }
+
+  private void checkRefused(Path file) {
+    try {
+      OpeningBook.read(file, words);
+    } catch (IOException e) {
+      return;
+    }
+    throw new AssertionError("A damaged book was read.");
+  }
+
+  // Random words over a few letters, so first guesses keep families large
+  // enough for the book to hold second guesses after them.
+  private static Set<String> words(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    Set<String> words = new LinkedHashSet<>();
+    for (int length = 4; length <= LENGTH; length++) {
+      int size = words.size() + (length == LENGTH ? 4000 : 400);
+      while (words.size() < size) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+          word[i] = "aeinorst".charAt(random.nextInt(8));
+        }
+        words.add(new String(word));
+      }
+    }
+    return words;
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new AssertionError(what);
+    }
+  }
+}
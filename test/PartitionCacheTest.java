@@ -0,0 +1,117 @@
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that managers sharing a PartitionCache play exactly like a
+ * manager without one: the same patterns, families and wrong guesses after
+ * every guess, and the same secret words from the same seeds, whether a
+ * split comes from the cache or is counted, and while the cache is
+ * evicting.
+ * <br>
+ * Run by Surefire as a plain test class: every public method whose name
+ * starts with test is a test, and fails by throwing.
+ */
+public class PartitionCacheTest {
+  private static final int[] LENGTHS = {4, 5, 6};
+  private static final int ROUNDS = 60;
+
+  private final HangmanDictionary dictionary = HangmanDictionary.of(words(99));
+
+  public void testLargeCache() {
+    PartitionCache cache = new PartitionCache(dictionary, 1 << 20);
+    play(cache);
+    check(cache.getHits() > 0, "Nothing was found in the cache.");
+  }
+
+  public void testEvictingCache() {
+    PartitionCache cache = new PartitionCache(dictionary, 64);
+    play(cache);
+    check(cache.getHits() > 0, "Nothing was found in the cache.");
+    check(cache.getEvictions() > 0, "Nothing was evicted from the cache.");
+  }
+
+  /*
+   * Play seeded rounds at every difficulty on a manager without a cache and
+   * two managers that share cache. The first of them to reach a state
+   * counts its split and the second usually finds it in the cache.
+   */
+  private void play(PartitionCache cache) {
+    HangmanManager plain = new HangmanManager(dictionary, false);
+    HangmanManager first = new HangmanManager(dictionary, false);
+    HangmanManager second = new HangmanManager(dictionary, false);
+    first.setPartitionCache(cache);
+    second.setPartitionCache(cache);
+    HangmanManager[] managers = {plain, first, second};
+    SplittableRandom random = new SplittableRandom(7);
+    for (HangmanDifficulty diff : HangmanDifficulty.values()) {
+      for (int round = 0; round < ROUNDS; round++) {
+        int length = LENGTHS[round % LENGTHS.length];
+        long seed = random.nextLong();
+        for (HangmanManager manager : managers) {
+          manager.prepForRound(length, 6, diff);
+          manager.setRandom(new SplittableRandom(seed));
+        }
+        char[] guesses = shuffledLetters(random);
+        String where = diff + " round " + round;
+        for (int i = 0; i < guesses.length && plain.getGuessesLeft() > 0
+            && plain.getPattern().indexOf('-') >= 0; i++) {
+          for (HangmanManager manager : managers) {
+            manager.makeGuess(guesses[i]);
+          }
+          where += " " + guesses[i];
+          for (HangmanManager manager : managers) {
+            check(manager.getPattern().equals(plain.getPattern()), "Wrong pattern after " + where);
+            check(manager.getGuessesLeft() == plain.getGuessesLeft(),
+                "Wrong guesses left after " + where);
+            check(manager.numWordsCurrent() == plain.numWordsCurrent(),
+                "Wrong number of words after " + where);
+            check(manager.describeLastGuess().equals(plain.describeLastGuess()),
+                "Wrong families after " + where);
+          }
+        }
+        String secret = plain.getSecretWord();
+        check(first.getSecretWord().equals(secret) && second.getSecretWord().equals(secret),
+            "Wrong secret word after " + where);
+      }
+    }
+  }
+
+  // The letters a - z in a random order.
+  private static char[] shuffledLetters(SplittableRandom random) {
+    char[] letters = new char[HangmanDictionary.LETTERS];
+    for (int i = 0; i < letters.length; i++) {
+      letters[i] = (char) ('a' + i);
+    }
+    for (int i = letters.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      char temp = letters[i];
+      letters[i] = letters[j];
+      letters[j] = temp;
+    }
+    return letters;
+  }
+
+  // Random words over a few letters, so they share many patterns.
+  private static Set<String> words(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    Set<String> words = new LinkedHashSet<>();
+    for (int length : LENGTHS) {
+      int size = words.size() + 300;
+      while (words.size() < size) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+          word[i] = "aeiorstln".charAt(random.nextInt(9));
+        }
+        words.add(new String(word));
+      }
+    }
+    return words;
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new AssertionError(what);
+    }
+  }
+}